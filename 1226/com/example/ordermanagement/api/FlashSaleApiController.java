@@ -0,0 +1,86 @@
+package com.example.ordermanagement.api;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ordermanagement.flashsale.FlashSaleStock;
+import com.example.ordermanagement.model.ItemOptionRepositry;
+import com.example.ordermanagement.model.LoginBean;
+
+import jakarta.servlet.http.HttpSession;
+
+//商品選項的搶購模式（開賣前開啟、結束後關閉），只有該商品的賣家可以開啟或關閉
+@RestController
+@RequestMapping("/api/flash-sale")
+public class FlashSaleApiController {
+
+	@Autowired
+	private FlashSaleStock flashSaleStock;
+
+	@Autowired
+	private ItemOptionRepositry itemOptionRepo;
+
+	// 開啟搶購模式的選項與剩餘數量 (http://localhost:8080/api/flash-sale)
+	@GetMapping
+	public ResponseEntity<?> stats(HttpSession session) {
+		if (session.getAttribute("user") == null) {
+			return unauthorized();
+		}
+		return ResponseEntity.ok(flashSaleStock.stats());
+	}
+
+	@PostMapping("/options/{optionId}")
+	public ResponseEntity<?> enable(@PathVariable int optionId, HttpSession session) {
+		ResponseEntity<Map<String, String>> denied = requireSeller(optionId, session);
+		if (denied != null) {
+			return denied;
+		}
+		flashSaleStock.enable(optionId);
+		return ResponseEntity.ok(Map.of("message", "已開啟搶購模式", "optionId", optionId));
+	}
+
+	@DeleteMapping("/options/{optionId}")
+	public ResponseEntity<?> disable(@PathVariable int optionId, HttpSession session) {
+		ResponseEntity<Map<String, String>> denied = requireSeller(optionId, session);
+		if (denied != null) {
+			return denied;
+		}
+		flashSaleStock.disable(optionId);
+		return ResponseEntity.ok(Map.of("message", "已關閉搶購模式", "optionId", optionId));
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+	}
+
+	// 只有選項所屬商品的賣家可以開啟或關閉搶購模式；通過時回傳 null
+	private ResponseEntity<Map<String, String>> requireSeller(int optionId, HttpSession session) {
+		LoginBean user = (LoginBean) session.getAttribute("user");
+		if (user == null) {
+			return unauthorized();
+		}
+		Integer sellerId = itemOptionRepo.findSellerIdById(optionId);
+		if (sellerId == null) {
+			throw new IllegalArgumentException("無效的商品選項ID");
+		}
+		if (sellerId.intValue() != user.getUserId()) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "只有商品的賣家可以設定搶購模式"));
+		}
+		return null;
+	}
+
+	private ResponseEntity<Map<String, String>> unauthorized() {
+		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "尚未登入，請先登入！"));
+	}
+}
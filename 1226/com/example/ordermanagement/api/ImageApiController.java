@@ -0,0 +1,52 @@
+package com.example.ordermanagement.api;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ordermanagement.image.ImageByteCache;
+import com.example.ordermanagement.image.ItemPhotoHashes;
+import com.example.ordermanagement.image.PhotoUrls;
+
+//圖片相關的 JSON API
+@RestController
+@RequestMapping("/api/image")
+public class ImageApiController {
+
+	private static final int MAX_BATCH = 100;
+
+	@Autowired
+	private ImageByteCache imageByteCache;
+
+	@Autowired
+	private ItemPhotoHashes itemPhotoHashes;
+
+	@Autowired
+	private PhotoUrls photoUrls;
+
+	// 多張商品圖片的網址清單 (http://localhost:8080/api/image/items?ids=1,2,3&size=160)
+	// 以一次查詢確認圖片並記住 hash，之後各張圖片的請求（HTTP/2 可共用同一條連線）不必逐張查資料庫；
+	// 回傳 圖片 ID → 網址，不存在的 ID 不會出現
+	@GetMapping("/items")
+	public Map<Integer, String> itemPhotos(@RequestParam("ids") List<Integer> ids,
+			@RequestParam(value = "size", required = false) Integer size) {
+		List<Integer> requested = ids.size() > MAX_BATCH ? ids.subList(0, MAX_BATCH) : ids;
+		Map<Integer, String> urls = new LinkedHashMap<>();
+		for (Integer photoId : itemPhotoHashes.prefetch(requested).keySet()) {
+			urls.put(photoId, size != null ? photoUrls.item(photoId, size) : photoUrls.item(photoId));
+		}
+		return urls;
+	}
+
+	// 圖片快取的命中率、淘汰與使用量統計 (http://localhost:8080/api/image/cache/stats)
+	@GetMapping("/cache/stats")
+	public Map<String, Object> cacheStats() {
+		return imageByteCache.stats();
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.ordermanagement.api;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ordermanagement.search.CatalogSearchService;
+import com.example.ordermanagement.search.SearchResultCache;
+import com.example.ordermanagement.search.Suggestion;
+
+//搜尋框使用的 JSON API
+@RestController
+@RequestMapping("/api/search")
+public class SearchApiController {
+
+	private static final int MAX_LIMIT = 16;
+
+	@Autowired
+	private CatalogSearchService catalogSearchService;
+
+	@Autowired
+	private SearchResultCache searchResultCache;
+
+	// 自動完成建議 (http://localhost:8080/api/search/suggest?q=吉伊)
+	@GetMapping("/suggest")
+	public List<Suggestion> suggest(@RequestParam(value = "q", required = false) String q,
+			@RequestParam(value = "limit", defaultValue = "8") int limit) {
+		if (q == null || q.isBlank()) {
+			return List.of();
+		}
+		return catalogSearchService.suggest(q, Math.max(1, Math.min(limit, MAX_LIMIT)));
+	}
+
+	// 篩選結果快取的命中率統計 (http://localhost:8080/api/search/cache/stats)
+	@GetMapping("/cache/stats")
+	public Map<String, Object> cacheStats() {
+		return searchResultCache.stats();
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.ordermanagement.api;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ordermanagement.image.UploadSessions;
+import com.example.ordermanagement.model.LoginBean;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+//可續傳的分段上傳（需先登入，只能操作自己的上傳），完成後的上傳 ID 可在新增 / 編輯商品時以 uploadIds 帶入
+//1. POST /api/uploads?size=檔案大小 → uploadId
+//2. PUT /api/uploads/{id}?offset=已收到位置，本文為該段原始內容（中斷後以 GET 查詢位置續傳）
+//3. POST /api/uploads/{id}/complete → hash 與圖片網址
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadApiController {
+
+	@Autowired
+	private UploadSessions uploadSessions;
+
+	@PostMapping
+	public Map<String, Object> start(@RequestParam("size") long size, HttpSession session) throws IOException {
+		String id = uploadSessions.start(userId(session), size);
+		return progress(id);
+	}
+
+	@PutMapping("/{id}")
+	public Map<String, Object> append(@PathVariable String id, @RequestParam("offset") long offset,
+			HttpServletRequest request, HttpSession session) throws IOException {
+		checkOwner(id, session);
+		// 直接讀取請求本文寫進暫存檔，不經過 multipart 也不整段讀進記憶體
+		uploadSessions.append(id, offset, request.getInputStream());
+		return progress(id);
+	}
+
+	@GetMapping("/{id}")
+	public Map<String, Object> status(@PathVariable String id, HttpSession session) {
+		checkOwner(id, session);
+		return progress(id);
+	}
+
+	@PostMapping("/{id}/complete")
+	public Map<String, Object> complete(@PathVariable String id, HttpSession session) throws IOException {
+		checkOwner(id, session);
+		String hash = uploadSessions.complete(id);
+		Map<String, Object> response = progress(id);
+		response.put("hash", hash);
+		response.put("url", "/uploads/" + hash);
+		return response;
+	}
+
+	@DeleteMapping("/{id}")
+	public ResponseEntity<Void> discard(@PathVariable String id, HttpSession session) throws IOException {
+		checkOwner(id, session);
+		uploadSessions.discard(id);
+		return ResponseEntity.noContent().build();
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+	}
+
+	private int userId(HttpSession session) {
+		LoginBean user = (LoginBean) session.getAttribute("user");
+		if (user == null) {
+			throw new IllegalArgumentException("尚未登入，無法使用分段上傳");
+		}
+		return user.getUserId();
+	}
+
+	private void checkOwner(String id, HttpSession session) {
+		uploadSessions.checkOwner(List.of(id), userId(session));
+	}
+
+	private Map<String, Object> progress(String id) {
+		Map<String, Object> response = new HashMap<>();
+		response.put("uploadId", id);
+		response.put("received", uploadSessions.received(id));
+		response.put("total", uploadSessions.total(id));
+		return response;
+	}
+}
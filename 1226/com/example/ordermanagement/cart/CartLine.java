@@ -0,0 +1,70 @@
+package com.example.ordermanagement.cart;
+
+import java.math.BigDecimal;
+
+/**
+ * 購物車中的一個商品選項（每個選項只有一筆），含顯示購物車所需的資料，讀取購物車不必再查商品與選項
+ */
+public final class CartLine {
+
+    private final int optionId;
+    private final int itemId;
+    private final Integer sellerId;
+    private final String itemName;
+    private final String optionName;
+    private final BigDecimal optionPrice;
+    private final BigDecimal itemPrice; // 加入購物車時的價格
+    private final int quantity;
+
+    public CartLine(int optionId, int itemId, Integer sellerId, String itemName, String optionName,
+            BigDecimal optionPrice, BigDecimal itemPrice, int quantity) {
+        this.optionId = optionId;
+        this.itemId = itemId;
+        this.sellerId = sellerId;
+        this.itemName = itemName;
+        this.optionName = optionName;
+        this.optionPrice = optionPrice;
+        this.itemPrice = itemPrice;
+        this.quantity = quantity;
+    }
+
+    public CartLine withQuantity(int quantity) {
+        return new CartLine(optionId, itemId, sellerId, itemName, optionName, optionPrice, itemPrice, quantity);
+    }
+
+    public BigDecimal total() {
+        return itemPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    public int getOptionId() {
+        return optionId;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public Integer getSellerId() {
+        return sellerId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getOptionName() {
+        return optionName;
+    }
+
+    public BigDecimal getOptionPrice() {
+        return optionPrice;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ordermanagement.cart;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一位買家的購物車（依加入順序，以商品選項 ID 為索引），只在 CartStore.update 的回呼中修改
+ */
+public class CartState {
+
+    private final int buyerId;
+    private final Map<Integer, CartLine> lines = new LinkedHashMap<>();
+
+    public CartState(int buyerId, List<CartLine> lines) {
+        this.buyerId = buyerId;
+        for (CartLine line : lines) {
+            put(line);
+        }
+    }
+
+    public int getBuyerId() {
+        return buyerId;
+    }
+
+    public CartLine line(int optionId) {
+        return lines.get(optionId);
+    }
+
+    public List<CartLine> lines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    public void put(CartLine line) {
+        lines.put(line.getOptionId(), line);
+    }
+
+    public void remove(int optionId) {
+        lines.remove(optionId);
+    }
+
+    public void clear() {
+        lines.clear();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public BigDecimal total() {
+        return total(lines.values());
+    }
+
+    public static BigDecimal total(Iterable<CartLine> lines) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartLine line : lines) {
+            total = total.add(line.total());
+        }
+        return total;
+    }
+}
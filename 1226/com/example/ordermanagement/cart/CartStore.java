@@ -0,0 +1,22 @@
+package com.example.ordermanagement.cart;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 購物車的存放位置
+ *
+ * 同一位買家的 update 依序執行；讀取回傳當下內容的複本。
+ */
+public interface CartStore {
+
+    /**
+     * 買家購物車目前的內容（沒有購物車時為空清單）
+     */
+    List<CartLine> get(int buyerId);
+
+    /**
+     * 在該買家的鎖內修改購物車並回傳 change 的結果；change 丟出例外時購物車不變
+     */
+    <T> T update(int buyerId, Function<CartState, T> change);
+}
@@ -0,0 +1,95 @@
+package com.example.ordermanagement.cart;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ordermanagement.model.Cart;
+import com.example.ordermanagement.model.CartItem;
+import com.example.ordermanagement.model.CartItemRepository;
+import com.example.ordermanagement.model.CartRepository;
+import com.example.ordermanagement.model.ItemOptionRepositry;
+import com.example.ordermanagement.model.ItemRepository;
+import com.example.ordermanagement.model.UserInfoRepository;
+
+/**
+ * 讀寫 cart / cart_items 資料表
+ *
+ * 讀取以單一查詢取得顯示購物車所需的欄位；寫入把資料表同步成指定的內容（依商品選項比對，新增、更新或刪除項目）。
+ */
+@Component
+public class CartTables {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserInfoRepository userInfoRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemOptionRepositry itemOptionRepository;
+
+    @Transactional(readOnly = true)
+    public List<CartLine> load(int buyerId) {
+        // 舊資料中同一選項可能有多筆，合併數量
+        Map<Integer, CartLine> lines = new LinkedHashMap<>();
+        for (Object[] row : cartItemRepository.findCartLinesByBuyerId(buyerId)) {
+            CartLine line = new CartLine((Integer) row[0], (Integer) row[1], (Integer) row[2], (String) row[3],
+                    (String) row[4], (BigDecimal) row[5], (BigDecimal) row[6], (Integer) row[7]);
+            CartLine existing = lines.get(line.getOptionId());
+            lines.put(line.getOptionId(),
+                    existing != null ? existing.withQuantity(existing.getQuantity() + line.getQuantity()) : line);
+        }
+        return new ArrayList<>(lines.values());
+    }
+
+    @Transactional
+    public void write(int buyerId, List<CartLine> lines) {
+        Cart cart = cartRepository.findByBuyerUserId(buyerId).orElse(null);
+        if (cart == null) {
+            if (lines.isEmpty()) {
+                return;
+            }
+            cart = new Cart();
+            cart.setBuyer(userInfoRepository.getReferenceById(buyerId));
+        }
+
+        Map<Integer, CartItem> existing = new HashMap<>();
+        for (CartItem cartItem : new ArrayList<>(cart.getCartItems())) {
+            if (existing.putIfAbsent(cartItem.getItemSize().getId(), cartItem) != null) {
+                cart.removeCartItem(cartItem);
+            }
+        }
+        for (CartLine line : lines) {
+            CartItem cartItem = existing.remove(line.getOptionId());
+            if (cartItem == null) {
+                cartItem = new CartItem();
+                cartItem.setItem(itemRepository.getReferenceById(line.getItemId()));
+                cartItem.setItemSize(itemOptionRepository.getReferenceById(line.getOptionId()));
+                cartItem.setSeller(line.getSellerId() != null ? userInfoRepository.getReferenceById(line.getSellerId()) : null);
+                cartItem.setItemPrice(line.getItemPrice());
+                cartItem.setItemQuantity(line.getQuantity());
+                cart.addCartItem(cartItem);
+            } else {
+                cartItem.setItemPrice(line.getItemPrice());
+                cartItem.setItemQuantity(line.getQuantity());
+            }
+        }
+        existing.values().forEach(cart::removeCartItem);
+        cart.recalculateCartTotal();
+        cartRepository.save(cart);
+    }
+}
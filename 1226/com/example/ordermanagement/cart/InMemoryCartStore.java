@@ -0,0 +1,160 @@
+package com.example.ordermanagement.cart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 存在記憶體中的購物車，變動在背景批次寫回 cart / cart_items
+ *
+ * 第一次存取時從資料表載入，之後讀取與修改都只在記憶體中進行；同一位買家在 flush-interval 內的多次修改
+ * 只會寫回最後的內容。超過 max-entries 時由寫回執行緒移出最久未使用、且已寫回的購物車，下次存取時重新載入。
+ * 當掉時會遺失最後一次寫回之後的修改（庫存保留在資料庫中，逾時後照常釋放）。
+ *
+ * 購物車只存在這個節點，與 HttpSession 相同，需要單一節點或固定節點（sticky session）的部署。
+ */
+@Component
+public class InMemoryCartStore implements CartStore {
+
+    @Autowired
+    private CartTables cartTables;
+
+    @Value("${cart.store.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${cart.store.flush-interval-millis:500}")
+    private long flushIntervalMillis;
+
+    private final Map<Integer, Entry> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        writer.scheduleWithFixedDelay(this::flushAndEvict, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<CartLine> get(int buyerId) {
+        return entry(buyerId).lines;
+    }
+
+    @Override
+    public <T> T update(int buyerId, Function<CartState, T> change) {
+        while (true) {
+            Entry entry = entry(buyerId);
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue; // 剛被移出，重新載入
+                }
+                // 在複本上修改，change 丟出例外時購物車不變
+                CartState state = new CartState(buyerId, entry.lines);
+                T result = change.apply(state);
+                entry.lines = List.copyOf(state.lines());
+                entry.version++;
+                dirty.add(buyerId);
+                return result;
+            }
+        }
+    }
+
+    private Entry entry(int buyerId) {
+        // 在 computeIfAbsent 內載入：同一個買家的載入與移出互斥，不會把移出前讀到的舊內容放回記憶體
+        Entry entry = carts.computeIfAbsent(buyerId, id -> new Entry(id, cartTables.load(id)));
+        entry.lastAccess = System.nanoTime();
+        return entry;
+    }
+
+    private void write(Entry entry) {
+        synchronized (entry.flushLock) {
+            List<CartLine> lines;
+            long version;
+            synchronized (entry) {
+                if (entry.version == entry.flushedVersion) {
+                    return;
+                }
+                lines = entry.lines;
+                version = entry.version;
+            }
+            cartTables.write(entry.buyerId, lines);
+            synchronized (entry) {
+                entry.flushedVersion = version;
+            }
+        }
+    }
+
+    private void flushAndEvict() {
+        for (Integer buyerId : new ArrayList<>(dirty)) {
+            dirty.remove(buyerId);
+            Entry entry = carts.get(buyerId);
+            if (entry == null) {
+                continue;
+            }
+            try {
+                write(entry);
+            } catch (RuntimeException e) {
+                // 留在記憶體中，下一輪重試
+                dirty.add(buyerId);
+                System.out.println("購物車寫回失敗：買家 " + buyerId + " " + e.getMessage());
+            }
+        }
+
+        int excess = carts.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        List<Entry> oldest = new ArrayList<>(carts.values());
+        oldest.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+        for (Entry entry : oldest.subList(0, excess)) {
+            synchronized (entry) {
+                // 尚未寫回的留到下一輪寫回後再移出
+                if (entry.version == entry.flushedVersion) {
+                    entry.evicted = true;
+                    carts.remove(entry.buyerId, entry);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        flushAndEvict();
+    }
+
+    private static final class Entry {
+        final int buyerId;
+        final Object flushLock = new Object();
+        volatile List<CartLine> lines;
+        volatile long lastAccess;
+        long version;        // entry 鎖保護
+        long flushedVersion; // entry 鎖保護
+        boolean evicted;     // entry 鎖保護
+
+        Entry(int buyerId, List<CartLine> lines) {
+            this.buyerId = buyerId;
+            this.lines = List.copyOf(lines);
+        }
+    }
+}
@@ -1,15 +1,13 @@
 package com.example.ordermanagement.controller;
 
 import java.io.IOException;
-import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -22,10 +20,19 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import com.example.ordermanagement.service.BrandService;
 import com.example.ordermanagement.dto.BrandDTO;
 import com.example.ordermanagement.model.Brand;
 import com.example.ordermanagement.model.BrandRepository;
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.PhotoUrls;
+import com.example.ordermanagement.image.StoredImage;
+import com.example.ordermanagement.search.CatalogSearchService;
+import com.example.ordermanagement.service.ItemSummaryService;
 
 
 @Controller
@@ -35,6 +42,16 @@ public class BrandController {
 	private BrandService brandService;
 	@Autowired
 	private BrandRepository brandRepo;
+	@Autowired
+	private CatalogSearchService catalogSearchService;
+	@Autowired
+	private ImageResponses imageResponses;
+	@Autowired
+	private ImageUploadPipeline imageUploadPipeline;
+	@Autowired
+	private PhotoUrls photoUrls;
+	@Autowired
+	private ItemSummaryService itemSummaryService;
 
 	@GetMapping("/brand/list")
 	public String listBrand(Model model) {
@@ -46,25 +63,18 @@ public class BrandController {
 		return "brand/brandListView";
 	}
 
+	// v 為內容版本（由列表 API 回傳的網址帶入），與目前版本相同時可長期快取
 	@GetMapping("/api/brand/photo")
-	public ResponseEntity<byte[]> getCategoryPhoto(@RequestParam("id") Integer brandId) {
-		Optional<Brand> brandOpt = brandRepo.findById(brandId);
-
-		if (brandOpt.isEmpty()) {
-			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-		}
-
-		Brand brand = brandOpt.get();
-		byte[] photo = brand.getBrandPhoto();
-
-		if (photo == null || photo.length == 0) {
-			return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 若圖片不存在或為空
-		}
-
-		HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.IMAGE_JPEG);
-
-		return new ResponseEntity<>(photo, headers, HttpStatus.OK);
+	public void getCategoryPhoto(@RequestParam("id") Integer brandId,
+			@RequestParam(value = "v", required = false) String version,
+			@RequestParam(value = "size", required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		// 不存在回 404，沒有圖片回 204
+		imageResponses.serve(PhotoUrls.brandKey(brandId), version, size,
+				() -> brandRepo.findById(brandId)
+						.map(brand -> StoredImage.of(brand.getBrandPhotoHash(), brand::getBrandPhoto))
+						.orElse(null),
+				request, response);
 	}
 
 	@ResponseBody
@@ -76,7 +86,7 @@ public class BrandController {
 		Brand brand = new Brand();
 		brand.setBrandName(brandName);
 		brand.setBrandInfo(brandInfo);
-		brand.setBrandPhoto(files.getBytes());
+		brand.setBrandPhotoHash(imageUploadPipeline.upload(files.getInputStream()));
 		
 
 		brandRepo.save(brand);
@@ -93,9 +103,8 @@ public class BrandController {
 	    // 將每個 brand 轉換為 brandDTO
 	    return brandList.stream()
 	        .map(brand -> {
-	            // 將圖片轉換為 Base64 字串
-	            String brandPhoto = brand.getBrandPhoto() != null ? 
-	                Base64.getEncoder().encodeToString(brand.getBrandPhoto()) : "";
+	            // 圖片改回傳網址，不內嵌 Base64
+	            String brandPhoto = Objects.requireNonNullElse(photoUrls.brand(brand), "");
 	            
 	            // 返回 DTO
 	            return new BrandDTO(
@@ -124,10 +133,14 @@ public class BrandController {
 	    brand.setBrandInfo(brandInfo != null ? brandInfo : brand.getBrandInfo());
 	    
 	    if (file != null && !file.isEmpty()) {
-	        brand.setBrandPhoto(file.getBytes());
+	        brand.setBrandPhotoHash(imageUploadPipeline.upload(file.getInputStream()));
+	        brand.setBrandPhoto(null);
+	        imageResponses.evict(PhotoUrls.brandKey(brandId)); // 圖片變更，網址版本跟著改變
 	    }
 
 	    brandRepo.save(brand);
+	    itemSummaryService.renameBrand(brandId, brandName);
+	    catalogSearchService.reindexBrand(brandId); // 名稱可能變更，重新索引相關商品
 	    return new ResponseEntity<>("更新成功", HttpStatus.OK);
 	}
 	// 刪除分類
@@ -140,6 +153,7 @@ public class BrandController {
 	    }
 
 	    brandRepo.deleteById(brandId);
+	    imageResponses.evict(PhotoUrls.brandKey(brandId));
 	    return new ResponseEntity<>("刪除成功", HttpStatus.OK);
 	}
 	
@@ -150,8 +164,7 @@ public class BrandController {
 	        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 	    }
 	    Brand brand = brandOpt.get();
-	    String brandPhoto = brand.getBrandPhoto() != null ?
-	        Base64.getEncoder().encodeToString(brand.getBrandPhoto()) : "";
+	    String brandPhoto = Objects.requireNonNullElse(photoUrls.brand(brand), "");
 	    BrandDTO brandDTO = new BrandDTO(
 	    		brand.getBrandId(),
 	    		brand.getBrandName(),
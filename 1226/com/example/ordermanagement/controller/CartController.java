@@ -1,6 +1,7 @@
 package com.example.ordermanagement.controller;
 
 import com.example.ordermanagement.dto.CartDto;
+import com.example.ordermanagement.dto.CartOperation;
 import com.example.ordermanagement.dto.CheckoutRequest;
 import com.example.ordermanagement.model.*;
 import com.example.ordermanagement.service.*;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -29,9 +31,6 @@ public class CartController {
     @Autowired
     private ItemService itemService;
 
-    @Autowired
-    private OrderService orderService;
-
     @Autowired
     private ShippingInfoService shippingInfoService;
 
@@ -65,10 +64,7 @@ public class CartController {
         if (userId == null) {
             return "redirect:/login"; // 未登入時重定向到登入頁面
         }
-        UserInfo userInfo = userInfoService.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("無效的用戶ID"));
-        Cart cart = cartService.getOrCreateCart(userInfo);
-        model.addAttribute("cart", cartService.convertToCartDto(cart));
+        model.addAttribute("cart", cartService.getCartDto(userId));
         return "cart/cart"; // 返回購物車頁面
     }
 
@@ -93,17 +89,32 @@ public class CartController {
         }
 
         try {
-            UserInfo userInfo = userInfoService.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("無效的用戶ID"));
-
-            Cart cart = cartService.getOrCreateCart(userInfo);
-            CartDto cartDto = cartService.convertToCartDto(cart);
+            CartDto cartDto = cartService.getCartDto(userId);
             return ResponseEntity.ok(cartDto);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("無法獲取購物車數據：" + e.getMessage());
         }
     }
 
+    // 一次套用多個購物車操作，回傳更新後的購物車；任一操作失敗時購物車不變
+    // 本文：[{"op":"add","optionId":1,"quantity":2}, {"op":"set","optionId":3,"quantity":1}, {"op":"remove","optionId":5}]
+    @ResponseBody
+    @PatchMapping("/api/cart")
+    public ResponseEntity<?> patchCart(@RequestBody List<CartOperation> operations, HttpSession session) {
+        Integer userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("尚未登入，請先登入！");
+        }
+
+        try {
+            return ResponseEntity.ok(cartService.applyOperations(userId, operations));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("更新購物車失敗：" + e.getMessage());
+        }
+    }
+
     @ResponseBody
     @PostMapping("/api/cart/items")
     public ResponseEntity<Map<String, String>> addItemToCart(@RequestBody AddCartItemRequest request, HttpSession session) {
@@ -113,10 +124,7 @@ public class CartController {
         }
 
         try {
-            UserInfo userInfo = userInfoService.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("無效的用戶ID"));
-
-            cartService.addItemToCart(userInfo, request.getOptionId(), request.getItemQuantity());
+            cartService.addItemToCart(userId, request.getOptionId(), request.getItemQuantity());
             return createSuccessResponse("商品已成功新增至購物車！");
         } catch (IllegalArgumentException e) {
             return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
@@ -141,10 +149,7 @@ public class CartController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("數量必須大於 0！");
             }
 
-            UserInfo userInfo = userInfoService.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("無效的用戶ID"));
-
-            CartDto updatedCart = cartService.updateItemQuantity(userInfo, cartItemId, quantity);
+            CartDto updatedCart = cartService.updateItemQuantity(userId, cartItemId, quantity);
             return ResponseEntity.ok(updatedCart);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -162,10 +167,7 @@ public class CartController {
         }
 
         try {
-            UserInfo userInfo = userInfoService.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("無效的用戶ID"));
-
-            cartService.removeItemFromCart(userInfo, cartItemId);
+            cartService.removeItemFromCart(userId, cartItemId);
             return ResponseEntity.ok("商品已成功移除！");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -183,18 +185,14 @@ public class CartController {
         }
 
         try {
-            Cart cart = cartService.getCartByBuyerId(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("購物車不存在"));
-
             ShippingMethod shippingMethod = shippingMethodService.getMethodById(checkoutRequest.getShippingMethodId())
                     .orElseThrow(() -> new IllegalArgumentException("無效的物流方式"));
 
-            Order order = orderService.createOrderFromCart(cart, checkoutRequest);
+            // 扣除庫存、建立訂單並清空購物車
+            Order order = cartService.checkout(userId, checkoutRequest);
 
             shippingInfoService.saveShippingInfo(order.getShippingInfo());
 
-            cartService.clearCart(cart.getBuyer());
-
             return ResponseEntity.ok(Map.of("orderId", order.getOrderId(), "redirectUrl", "/payment/" + order.getOrderId()));
         } catch (Exception e) {
             e.printStackTrace();
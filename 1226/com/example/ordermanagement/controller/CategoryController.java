@@ -1,15 +1,13 @@
 package com.example.ordermanagement.controller;
 
 import java.io.IOException;
-import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -22,10 +20,19 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import com.example.ordermanagement.service.CategoryService;
 import com.example.ordermanagement.dto.CategoryDTO;
 import com.example.ordermanagement.model.Category;
 import com.example.ordermanagement.model.CategoryRepository;
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.PhotoUrls;
+import com.example.ordermanagement.image.StoredImage;
+import com.example.ordermanagement.search.CatalogSearchService;
+import com.example.ordermanagement.service.ItemSummaryService;
 
 @Controller
 public class CategoryController {
@@ -34,6 +41,16 @@ public class CategoryController {
 	private CategoryService categoryService;
 	@Autowired
 	private CategoryRepository categoryRepo;
+	@Autowired
+	private CatalogSearchService catalogSearchService;
+	@Autowired
+	private ImageResponses imageResponses;
+	@Autowired
+	private ImageUploadPipeline imageUploadPipeline;
+	@Autowired
+	private PhotoUrls photoUrls;
+	@Autowired
+	private ItemSummaryService itemSummaryService;
 
 	@GetMapping("/category/list")
 	public String listCategory(Model model) {
@@ -45,25 +62,18 @@ public class CategoryController {
 		return "category/categoryListView";
 	}
 
+	// v 為內容版本（由列表 API 回傳的網址帶入），與目前版本相同時可長期快取
 	@GetMapping("/api/category/photo")
-	public ResponseEntity<byte[]> getCategoryPhoto(@RequestParam("id") Integer categoryId) {
-		Optional<Category> categoryOpt = categoryRepo.findById(categoryId);
-
-		if (categoryOpt.isEmpty()) {
-			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-		}
-
-		Category category = categoryOpt.get();
-		byte[] photo = category.getCategoryPhoto();
-
-		if (photo == null || photo.length == 0) {
-			return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 若圖片不存在或為空
-		}
-
-		HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.IMAGE_JPEG);
-
-		return new ResponseEntity<>(photo, headers, HttpStatus.OK);
+	public void getCategoryPhoto(@RequestParam("id") Integer categoryId,
+			@RequestParam(value = "v", required = false) String version,
+			@RequestParam(value = "size", required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		// 不存在回 404，沒有圖片回 204
+		imageResponses.serve(PhotoUrls.categoryKey(categoryId), version, size,
+				() -> categoryRepo.findById(categoryId)
+						.map(category -> StoredImage.of(category.getCategoryPhotoHash(), category::getCategoryPhoto))
+						.orElse(null),
+				request, response);
 	}
 
 	@ResponseBody
@@ -75,7 +85,7 @@ public class CategoryController {
 		Category category = new Category();
 		category.setCategoryName(categoryName);
 		category.setCategoryInfo(categoryDesc);
-		category.setCategoryPhoto(files.getBytes());
+		category.setCategoryPhotoHash(imageUploadPipeline.upload(files.getInputStream()));
 
 		categoryRepo.save(category);
 
@@ -91,9 +101,8 @@ public class CategoryController {
 	    // 將每個 Category 轉換為 CategoryDTO
 	    return categoryList.stream()
 	        .map(category -> {
-	            // 將圖片轉換為 Base64 字串
-	            String categoryPhoto = category.getCategoryPhoto() != null ? 
-	                Base64.getEncoder().encodeToString(category.getCategoryPhoto()) : "";
+	            // 圖片改回傳網址，不內嵌 Base64
+	            String categoryPhoto = Objects.requireNonNullElse(photoUrls.category(category), "");
 	            
 	            // 返回 DTO
 	            return new CategoryDTO(
@@ -122,10 +131,14 @@ public class CategoryController {
 	    category.setCategoryInfo(categoryDesc != null ? categoryDesc : category.getCategoryInfo());
 	    
 	    if (file != null && !file.isEmpty()) {
-	        category.setCategoryPhoto(file.getBytes());
+	        category.setCategoryPhotoHash(imageUploadPipeline.upload(file.getInputStream()));
+	        category.setCategoryPhoto(null);
+	        imageResponses.evict(PhotoUrls.categoryKey(categoryId)); // 圖片變更，網址版本跟著改變
 	    }
 
 	    categoryRepo.save(category);
+	    itemSummaryService.renameCategory(categoryId, categoryName);
+	    catalogSearchService.reindexCategory(categoryId); // 名稱可能變更，重新索引相關商品
 	    return new ResponseEntity<>("更新成功", HttpStatus.OK);
 	}
 	// 刪除分類
@@ -138,6 +151,7 @@ public class CategoryController {
 	    }
 
 	    categoryRepo.deleteById(categoryId);
+	    imageResponses.evict(PhotoUrls.categoryKey(categoryId));
 	    return new ResponseEntity<>("刪除成功", HttpStatus.OK);
 	}
 	@GetMapping("/api/category/{categoryId}")
@@ -147,8 +161,7 @@ public class CategoryController {
 	        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 	    }
 	    Category category = categoryOpt.get();
-	    String categoryPhoto = category.getCategoryPhoto() != null ?
-	        Base64.getEncoder().encodeToString(category.getCategoryPhoto()) : "";
+	    String categoryPhoto = Objects.requireNonNullElse(photoUrls.category(category), "");
 	    CategoryDTO categoryDTO = new CategoryDTO(
 	        category.getCategoryId(),
 	        category.getCategoryName(),
@@ -5,19 +5,39 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageStore;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.StoredImage;
 import com.example.ordermanagement.model.ContentEntity;
 import com.example.ordermanagement.model.ContentRepository;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.util.*;
+import java.util.regex.Pattern;
 
 @RestController
 public class ContentController {
 
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
     private final String UPLOAD_DIR = "uploads/";
     @Autowired
     private ContentRepository contentRepository;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageUploadPipeline imageUploadPipeline;
+
+    @Autowired
+    private ImageResponses imageResponses;
     
     
     
@@ -32,28 +52,26 @@ public class ContentController {
         return ResponseEntity.ok("內容儲存成功");
     }
 
-    // 圖片上傳處理
+    // 圖片上傳處理：直接從 multipart 暫存檔串流存進 ImageStore（內容定址、依 hash 分目錄），不整個讀進記憶體
     @PostMapping("/upload-image")
     public ResponseEntity<Map<String, String>> uploadImage(@RequestParam("upload") MultipartFile file) {
         try {
             // 檢查是否為圖片類型
-            if (!file.getContentType().startsWith("image/")) {
+            if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
                 return ResponseEntity.badRequest().body(Map.of("error", "僅允許上傳圖片"));
             }
 
-            // 生成唯一文件名
-            String fileName = UUID.randomUUID().toString() + "-" + file.getOriginalFilename();
-            Path filePath = Paths.get(UPLOAD_DIR + fileName);
-
-            // 儲存文件
-            Files.createDirectories(filePath.getParent()); // 確保目錄存在
-            Files.write(filePath, file.getBytes());
+            // 儲存文件，相同內容只會存一份
+            String hash;
+            try (InputStream in = file.getInputStream()) {
+                hash = imageUploadPipeline.upload(in); // 同時產生衍生圖，/uploads/{hash} 回傳的尺寸才有上限
+            }
 
             // 返回圖片 URL
             Map<String, String> response = new HashMap<>();
             response.put("uploaded", "1");
-            response.put("fileName", fileName);
-            response.put("url", "/uploads/" + fileName);
+            response.put("fileName", hash);
+            response.put("url", "/uploads/" + hash);
 
             return ResponseEntity.ok(response);
         } catch (IOException e) {
@@ -61,4 +79,22 @@ public class ContentController {
             return ResponseEntity.status(500).body(Map.of("error", "圖片上傳失敗"));
         }
     }
+
+    // 上傳的圖片：/uploads/{hash} 取自 ImageStore；其他為舊版存在 uploads/ 下的「UUID-檔名」
+    // 網址對應的內容不會改變，回應長期快取；不存在回 404
+    @GetMapping("/uploads/{fileName}")
+    public void uploadedImage(@PathVariable String fileName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageResponses.serveImmutable("upload:" + fileName, null, () -> {
+            if (HASH.matcher(fileName).matches()) {
+                return imageStore.exists(fileName) ? StoredImage.of(fileName, () -> null) : null;
+            }
+            Path file = Paths.get(UPLOAD_DIR).toAbsolutePath().normalize().resolve(fileName).normalize();
+            if (!file.getParent().equals(Paths.get(UPLOAD_DIR).toAbsolutePath().normalize())
+                    || !Files.isRegularFile(file)) {
+                return null;
+            }
+            return StoredImage.ofFile(file); // 與 ImageStore 相同以 sendfile / transferTo 串流，不讀進 heap
+        }, request, response);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.ordermanagement.controller;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.time.LocalDate;
@@ -14,13 +15,13 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -30,6 +31,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.ItemPhotoHashes;
+import com.example.ordermanagement.image.PhotoUrls;
 import com.example.ordermanagement.model.Brand;
 import com.example.ordermanagement.model.BrandRepository;
 import com.example.ordermanagement.model.CategoryRepository;
@@ -39,16 +44,29 @@ import com.example.ordermanagement.model.ItemOptionRepositry;
 import com.example.ordermanagement.model.ItemPhoto;
 import com.example.ordermanagement.model.ItemPhotoRepositry;
 import com.example.ordermanagement.model.ItemRepository;
+import com.example.ordermanagement.model.ItemSummary;
+import com.example.ordermanagement.model.ItemSummaryRepository;
 import com.example.ordermanagement.model.UserInfo;
 import com.example.ordermanagement.model.UserInfoRepository;
+import com.example.ordermanagement.search.CatalogFacets;
+import com.example.ordermanagement.search.CatalogQuery;
+import com.example.ordermanagement.search.CatalogSearchResult;
+import com.example.ordermanagement.search.CatalogSearchService;
+import com.example.ordermanagement.search.CatalogSort;
+import com.example.ordermanagement.search.FilterKey;
+import com.example.ordermanagement.search.PageCursor;
+import com.example.ordermanagement.search.SearchResultCache;
+import com.example.ordermanagement.service.ItemSummaryService;
 
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 public class HomePageController {
 	
+	private static final int MAX_CURSOR_PAGE_SIZE = 100; // 游標分頁每頁上限（查詢會多取一筆）
+	
 	 @Autowired
 	    private ItemRepository itemRepository;
 	 
@@ -66,6 +84,27 @@ public class HomePageController {
 	 
 	 @Autowired
 	 private UserInfoRepository userInfoRepository;
+	 
+	 @Autowired
+	 private CatalogSearchService catalogSearchService;
+	 
+	 @Autowired
+	 private ItemSummaryRepository itemSummaryRepository;
+	 
+	 @Autowired
+	 private ItemSummaryService itemSummaryService;
+	 
+	 @Autowired
+	 private SearchResultCache searchResultCache;
+	 
+	 @Autowired
+	 private PhotoUrls photoUrls;
+	 
+	 @Autowired
+	 private ImageResponses imageResponses;
+
+	 @Autowired
+	 private ItemPhotoHashes itemPhotoHashes;
 	
 	// 顯示商城首頁頁面 (http://localhost:8080/homePage)
     @GetMapping("/homePage")
@@ -78,25 +117,41 @@ public class HomePageController {
     public String searchItems(@RequestParam(value = "keyword", required = false) String keyword, Model model) {
         System.out.println("Received keyword: " + keyword); // Debug 關鍵字輸入
 
-        List<Item> items;
+        List<ItemSummary> items;
+        String didYouMean = null;
 
         if (keyword == null || keyword.trim().isEmpty()) {
-            items = itemRepository.findAll(Sort.by(Sort.Direction.DESC, "itemId"));
+            items = itemSummaryRepository.findAll(Sort.by(Sort.Direction.DESC, "itemId"));
+        } else if (catalogSearchService.isReady()) {
+            // 由記憶體索引依相關性找出符合的商品，再載入商品摘要；英數單字有錯字時改用修正後的關鍵字
+            CatalogSearchResult result = catalogSearchService.search(new CatalogQuery()
+                    .setKeyword(keyword)
+                    .setSort(CatalogSort.RELEVANCE), false);
+            items = itemSummaryService.findAllInOrder(result.getItemIds());
+            didYouMean = result.getCorrection();
         } else {
-            items = itemRepository.findByItemNameContainingOrBrand_BrandNameContainingOrCategory_CategoryNameContainingOrderByItemIdDesc(
+            items = itemSummaryRepository.findByItemNameContainingOrBrandNameContainingOrCategoryNameContainingOrderByItemIdDesc(
                     keyword, keyword, keyword);
             System.out.println("Items found: " + items.size()); // Debug 查詢結果
         }
 
         model.addAttribute("items", items);
         model.addAttribute("keyword", keyword);
+        model.addAttribute("didYouMean", didYouMean);
         return "itemSearch";
     }
     
     
+    /**
+     * 篩選商品
+     *
+     * 未帶 cursor 時沿用頁碼分頁（page / size）；帶 cursor 時改用游標分頁，
+     * 第一頁傳空字串，之後傳回應中的 nextCursor，預設不計算總筆數（withCount=true 才計算）。
+     * 游標分頁可用 sort 指定 newest、price 或 relevance（依關鍵字相關性、銷售數量與上架日期）。
+     */
     @RequestMapping("/itemSearch/filter")
     @ResponseBody
-    public Page<Map<String, Object>> filterItems(
+    public ResponseEntity<Map<String, Object>> filterItems(
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
             @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
@@ -105,12 +160,172 @@ public class HomePageController {
             @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "25") int size) {
+            @RequestParam(value = "size", defaultValue = "25") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "sort", defaultValue = "newest") String sort,
+            @RequestParam(value = "withCount", defaultValue = "false") boolean withCount) {
+
+        List<String> brandList = parseBrandNames(brandIds);
+        try {
+            CatalogSort catalogSort = cursor != null ? CatalogSort.fromParam(sort) : CatalogSort.NEWEST;
+
+            // 只快取索引建立後的結果，快取失效由索引更新時觸發
+            if (!catalogSearchService.isReady()) {
+                return ResponseEntity.ok(filterItemsUncached(keyword, minPrice, maxPrice, categoryId, brandList,
+                        startDate, endDate, page, size, cursor, catalogSort, withCount));
+            }
+            FilterKey cacheKey = FilterKey.of(keyword, minPrice, maxPrice, categoryId, brandList,
+                    startDate, endDate, page, size, catalogSort, cursor, withCount);
+            Map<String, Object> cached = searchResultCache.get(cacheKey);
+            if (cached != null) {
+                return ResponseEntity.ok(cached);
+            }
+            long stamp = searchResultCache.stamp();
+            Map<String, Object> response = filterItemsUncached(keyword, minPrice, maxPrice, categoryId, brandList,
+                    startDate, endDate, page, size, cursor, catalogSort, withCount);
+            searchResultCache.put(cacheKey, response, stamp);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> filterItemsUncached(String keyword, BigDecimal minPrice, BigDecimal maxPrice,
+            Long categoryId, List<String> brandList, LocalDate startDate, LocalDate endDate,
+            int page, int size, String cursor, CatalogSort sort, boolean withCount) {
+        if (cursor != null) {
+            PageCursor after = cursor.isEmpty() ? null : PageCursor.decode(cursor, sort);
+            return filterItemsByCursor(keyword, minPrice, maxPrice, categoryId, brandList, startDate, endDate,
+                    sort, after, size, withCount);
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "itemId"));
 
-        // 保留你寫好的篩選邏輯
-        Page<Item> items = itemRepository.findAll((root, query, criteriaBuilder) -> {
+        // 索引尚未建立時，退回資料庫查詢（不含統計數量）
+        if (!catalogSearchService.isReady()) {
+            Specification<ItemSummary> spec = filterSpecification(keyword, minPrice, maxPrice, categoryId, brandList, startDate, endDate);
+            return toPageResponse(itemSummaryRepository.findAll(spec, pageable).map(this::toItemCard), null);
+        }
+
+        CatalogSearchResult result = catalogSearchService.searchWithFacets(new CatalogQuery()
+                .setKeyword(keyword)
+                .setMinPrice(minPrice)
+                .setMaxPrice(maxPrice)
+                .setCategoryId(categoryId != null && categoryId > 0 ? categoryId.intValue() : null)
+                .setBrandNames(brandList)
+                .setStartDate(startDate)
+                .setEndDate(endDate));
+        List<Integer> itemIds = result.getItemIds();
+
+        // 只載入目前這一頁的商品
+        int from = (int) Math.min(pageable.getOffset(), itemIds.size());
+        int to = Math.min(from + pageable.getPageSize(), itemIds.size());
+        List<Map<String, Object>> content = toItemCards(itemSummaryService.findAllInOrder(itemIds.subList(from, to)));
+        return toPageResponse(new PageImpl<>(content, pageable, itemIds.size()), result.getFacets());
+    }
+
+    // 游標分頁：多取一筆判斷是否還有下一頁，不執行 OFFSET，也不必每頁 count(*)
+    private Map<String, Object> filterItemsByCursor(String keyword, BigDecimal minPrice, BigDecimal maxPrice,
+            Long categoryId, List<String> brandList, LocalDate startDate, LocalDate endDate,
+            CatalogSort sort, PageCursor after, int size, boolean withCount) {
+        checkCursorPageSize(size);
+        List<ItemSummary> items;
+        boolean hasNext;
+        PageCursor next = null;
+        Long total = null;
+        CatalogFacets facets = null;
+
+        if (catalogSearchService.isReady()) {
+            CatalogQuery query = new CatalogQuery()
+                    .setKeyword(keyword)
+                    .setMinPrice(minPrice)
+                    .setMaxPrice(maxPrice)
+                    .setCategoryId(categoryId != null && categoryId > 0 ? categoryId.intValue() : null)
+                    .setBrandNames(brandList)
+                    .setStartDate(startDate)
+                    .setEndDate(endDate)
+                    .setSort(sort)
+                    .setAfter(after)
+                    .setLimit(size + 1);
+            // 篩選統計只在第一頁計算，捲動載入後續頁面時不重算
+            CatalogSearchResult result = catalogSearchService.search(query, after == null);
+            List<Integer> itemIds = result.getItemIds();
+            if (after == null) {
+                facets = result.getFacets();
+                total = withCount ? (long) result.getTotal() : null;
+            }
+            hasNext = itemIds.size() > size;
+            if (hasNext) {
+                // 相關性分數只在索引中，游標由搜尋結果產生
+                next = result.cursorAt(size - 1);
+            }
+            items = itemSummaryService.findAllInOrder(itemIds.subList(0, Math.min(size, itemIds.size())));
+        } else {
+            Specification<ItemSummary> spec = filterSpecification(keyword, minPrice, maxPrice, categoryId, brandList, startDate, endDate);
+            items = itemSummaryRepository.findBy(spec.and(keysetSpecification(sort, after)),
+                    q -> q.sortBy(sort.toSort()).limit(size + 1).all());
+            hasNext = items.size() > size;
+            if (hasNext) {
+                items = items.subList(0, size);
+                next = PageCursor.after(sort, items.get(size - 1));
+            }
+            total = withCount && after == null ? itemSummaryRepository.count(spec) : null;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", toItemCards(items));
+        response.put("size", size);
+        response.put("hasNext", hasNext);
+        response.put("nextCursor", next != null ? next.encode() : null);
+        response.put("totalElements", total);
+        response.put("facets", facets);
+        return response;
+    }
+
+    private static void checkCursorPageSize(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("每頁筆數必須介於 1 到 " + MAX_CURSOR_PAGE_SIZE);
+        }
+    }
+
+    // 排在游標之後的條件：newest 為 itemId < 游標；price 為 (itemPrice, itemId) > 游標，無價格排最前面；
+    // 資料庫沒有相關性分數，relevance 退回 newest 的順序
+    private Specification<ItemSummary> keysetSpecification(CatalogSort sort, PageCursor after) {
+        return (root, query, criteriaBuilder) -> {
+            if (after == null) {
+                return criteriaBuilder.conjunction();
+            }
+            if (sort != CatalogSort.PRICE) {
+                return criteriaBuilder.lessThan(root.get("itemId"), after.getItemId());
+            }
+            Predicate sameKeyLater = criteriaBuilder.greaterThan(root.get("itemId"), after.getItemId());
+            if (after.getPrice() == null) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.and(criteriaBuilder.isNull(root.get("itemPrice")), sameKeyLater),
+                        criteriaBuilder.isNotNull(root.get("itemPrice")));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(root.get("itemPrice"), after.getPrice()),
+                    criteriaBuilder.and(criteriaBuilder.equal(root.get("itemPrice"), after.getPrice()), sameKeyLater));
+        };
+    }
+
+    // 保留前端使用的分頁欄位，並附上篩選統計（品牌、分類、價格區間、上架月份）
+    private Map<String, Object> toPageResponse(Page<Map<String, Object>> page, CatalogFacets facets) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", page.getContent());
+        response.put("number", page.getNumber());
+        response.put("size", page.getSize());
+        response.put("totalElements", page.getTotalElements());
+        response.put("totalPages", page.getTotalPages());
+        response.put("facets", facets);
+        return response;
+    }
+
+    // 原本的 Criteria 查詢條件改查商品摘要，索引建立完成前使用
+    private Specification<ItemSummary> filterSpecification(String keyword, BigDecimal minPrice, BigDecimal maxPrice,
+            Long categoryId, List<String> brandList, LocalDate startDate, LocalDate endDate) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             // 價格篩選
@@ -124,25 +339,18 @@ public class HomePageController {
             // 關鍵字篩選 (商品名稱或品牌名稱)
             if (keyword != null && !keyword.trim().isEmpty()) {
                 Predicate namePredicate = criteriaBuilder.like(root.get("itemName"), "%" + keyword + "%");
-                Join<Item, Brand> brandJoin = root.join("brand", JoinType.LEFT);
-                Predicate brandPredicate = criteriaBuilder.like(brandJoin.get("brandName"), "%" + keyword + "%");
+                Predicate brandPredicate = criteriaBuilder.like(root.get("brandName"), "%" + keyword + "%");
                 predicates.add(criteriaBuilder.or(namePredicate, brandPredicate));
             }
 
             // 分類篩選
             if (categoryId != null && categoryId > 0) {
-                predicates.add(criteriaBuilder.equal(root.get("category").get("categoryId"), categoryId));
+                predicates.add(criteriaBuilder.equal(root.get("categoryId"), categoryId.intValue()));
             }
 
             // 品牌篩選
-            if (brandIds != null && !brandIds.isEmpty()) {
-                List<String> brandList = Arrays.stream(brandIds.split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toList());
-                if (!brandList.isEmpty()) {
-                    predicates.add(root.get("brand").get("brandName").in(brandList));
-                }
+            if (!brandList.isEmpty()) {
+                predicates.add(root.get("brandName").in(brandList));
             }
 
             // 日期篩選
@@ -154,41 +362,46 @@ public class HomePageController {
             }
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        }, pageable);
-
-        // 直接讀取商品選項的價格範圍
-        return items.map(item -> {
-            BigDecimal minOptionPrice = item.getItemOptions()
-                    .stream()
-                    .map(ItemOption::getOptionPrice)
-                    .filter(price -> price != null)
-                    .min(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO); // 如果沒有選項，價格為 0
-
-            BigDecimal maxOptionPrice = item.getItemOptions()
-                    .stream()
-                    .map(ItemOption::getOptionPrice)
-                    .filter(price -> price != null)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-
-            Map<String, Object> result = new HashMap<>();
-            result.put("itemId", item.getItemId());
-            result.put("itemName", item.getItemName());
-            result.put("itemPhoto", item.getItemPhoto().isEmpty()
-                    ? null
-                    : encodeImage(item.getItemPhoto().get(0).getPhotoFile()));
-            result.put("minPrice", minOptionPrice);
-            result.put("maxPrice", maxOptionPrice);
-
-            return result;
-        });
+        };
+    }
+
+    // 前端傳入的 brandIds 實際上是以逗號分隔的品牌名稱
+    private List<String> parseBrandNames(String brandIds) {
+        if (brandIds == null || brandIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(brandIds.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // 整頁的商品卡片：先以一次查詢記住所有主圖的 hash，瀏覽器接著同時載入各張縮圖時不必逐張查資料庫
+    private List<Map<String, Object>> toItemCards(List<ItemSummary> summaries) {
+        itemPhotoHashes.prefetch(summaries.stream()
+                .map(ItemSummary::getPrimaryPhotoId)
+                .collect(Collectors.toList()));
+        return summaries.stream().map(this::toItemCard).collect(Collectors.toList());
+    }
+
+    // 由商品摘要組成商品卡片資料，圖片改用 /itemPhoto/{id} 網址，不再內嵌 Base64
+    private Map<String, Object> toItemCard(ItemSummary summary) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("itemId", summary.getItemId());
+        result.put("itemName", summary.getItemName());
+        result.put("itemPhoto", photoUrls.item(summary.getPrimaryPhotoId(), ImageUploadPipeline.MEDIUM));
+        // 如果沒有選項，價格為 0
+        result.put("minPrice", summary.getMinOptionPrice() != null ? summary.getMinOptionPrice() : BigDecimal.ZERO);
+        result.put("maxPrice", summary.getMaxOptionPrice() != null ? summary.getMaxOptionPrice() : BigDecimal.ZERO);
+        result.put("inStock", summary.isInStock());
+
+        return result;
     }
     
     @GetMapping("/items/brand/{brandName}")
     public String searchItemsByBrand(@PathVariable("brandName") String brandName, Model model) {
         // 使用 Repository 查詢商品
-        List<Item> items = itemRepository.findByBrand_BrandNameContainingOrderByItemIdDesc(brandName);
+        List<ItemSummary> items = itemSummaryRepository.findByBrandNameContainingOrderByItemIdDesc(brandName);
         
         model.addAttribute("items", items); // 傳送查詢結果到前端
         model.addAttribute("keyword", brandName); // 傳遞品牌名稱作為搜尋關鍵字
@@ -197,17 +410,14 @@ public class HomePageController {
     }
     
     
+    // 商品圖片：圖片 ID 不會對應到不同內容，可長期快取；找不到圖片返回 404
+    // size 為長邊像素（160 / 480 / 1080），列表頁只下載縮圖
     @GetMapping("/itemPhoto/{id}")
-    @ResponseBody
-    public ResponseEntity<byte[]> getItemPhoto(@PathVariable("id") Integer photoId) {
-        ItemPhoto photo = itemPhotoRepo.findById(photoId).orElse(null);
-
-        if (photo != null && photo.getPhotoFile() != null) {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG); // 預設為 JPEG 格式
-            return new ResponseEntity<>(photo.getPhotoFile(), headers, HttpStatus.OK);
-        }
-        return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 找不到圖片返回 404
+    public void getItemPhoto(@PathVariable("id") Integer photoId,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageResponses.serveImmutable(PhotoUrls.itemKey(photoId), size,
+                () -> itemPhotoHashes.load(photoId), request, response);
     }
     
     // 顯示商城商品頁面 (http://localhost:8080/itemDisplay)
@@ -232,7 +442,7 @@ public class HomePageController {
         }
 
         // 獲取商品照片
-        List<ItemPhoto> photos = itemPhotoRepo.findByItem(item);
+        List<ItemPhoto> photos = itemPhotoRepo.findByItem_ItemIdOrderBySortOrderAscIdAsc(item.getItemId());
 
         // 獲取商品尺寸選項
         List<ItemOption> sizeOptions = itemOptionRepo.findByItem(item);
@@ -289,30 +499,11 @@ public class HomePageController {
         return brands.stream()
                      .map(brand -> new BrandSimpleResponse(
                              brand.getBrandName(),
-                             encodeImage(brand.getBrandPhoto())
+                             photoUrls.brand(brand) // 圖片網址，沒有圖片時為 null
                      ))
                      .collect(Collectors.toList());
     }
 
-    // 將圖片轉為 Base64 編碼，並判斷 MIME 類型
-    private String encodeImage(byte[] image) {
-        if (image == null) {
-            return null; // 如果圖片為空，返回 null
-        }
-
-        String mimeType = isPngFormat(image) ? "image/png" : "image/jpeg";
-        return "data:" + mimeType + ";base64," + java.util.Base64.getEncoder().encodeToString(image);
-    }
-
-    // 判斷圖片是否為 PNG 格式
-    private boolean isPngFormat(byte[] image) {
-        return image.length > 4 &&
-               image[0] == (byte) 0x89 &&
-               image[1] == (byte) 0x50 &&
-               image[2] == (byte) 0x4E &&
-               image[3] == (byte) 0x47;
-    }
-
     // 簡化品牌數據的 DTO
     private static class BrandSimpleResponse {
         private String brandName;
@@ -337,7 +528,7 @@ public class HomePageController {
     @GetMapping("/categories")
     @ResponseBody
     public List<CategorySimpleResponse> getAllCategories() {
-        return categoryRepository.findAll().stream()
+        return categoryRepository.findAllNames().stream()
                 .map(category -> new CategorySimpleResponse(
                         category.getCategoryId(),
                         category.getCategoryName()
@@ -364,73 +555,39 @@ public class HomePageController {
         }
     }
     
+    //(http://localhost:8080/items/latest?cursor=...&size=15)
+    // 以游標逐頁取得最新商品，回傳 content 與下一頁的 nextCursor（沒有下一頁時為 null）
+    @GetMapping("/items/latest")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getLatestItemsByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "15") int size) {
+        Slice<ItemSummary> slice;
+        try {
+            checkCursorPageSize(size);
+            Pageable pageable = PageRequest.of(0, size);
+            slice = cursor == null || cursor.isEmpty()
+                    ? itemSummaryRepository.findByOrderByItemIdDesc(pageable)
+                    : itemSummaryRepository.findByItemIdLessThanOrderByItemIdDesc(
+                            PageCursor.decode(cursor, CatalogSort.NEWEST).getItemId(), pageable);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<ItemSummary> items = slice.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", toItemCards(items));
+        response.put("nextCursor", slice.hasNext()
+                ? PageCursor.after(CatalogSort.NEWEST, items.get(items.size() - 1)).encode()
+                : null);
+        return ResponseEntity.ok(response);
+    }
+
     //(http://localhost:8080/items/latest15)
     // 取得最新 15 項商品，回傳 JSON 格式
     @GetMapping("/items/latest15")
     @ResponseBody
     public List<Map<String, Object>> getLatestItems() {
-        return itemRepository.findTop15ByOrderByItemIdDesc().stream().map(item -> {
-            // 計算最小價格
-            BigDecimal minPrice = item.getItemOptions().stream()
-                    .map(ItemOption::getOptionPrice)
-                    .filter(price -> price != null)
-                    .min(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-
-            // 計算最大價格
-            BigDecimal maxPrice = item.getItemOptions().stream()
-                    .map(ItemOption::getOptionPrice)
-                    .filter(price -> price != null)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-
-            // 返回 Map 結構
-            Map<String, Object> response = new HashMap<>();
-            response.put("itemId", item.getItemId());
-            response.put("itemName", item.getItemName());
-            response.put("itemPhoto", item.getItemPhoto().isEmpty()
-                    ? null
-                    : encodeImage(item.getItemPhoto().get(0).getPhotoFile()));
-            response.put("minPrice", minPrice); // 傳遞最小價格
-            response.put("maxPrice", maxPrice); // 傳遞最大價格
-
-            return response;
-        }).collect(Collectors.toList());
-    }
-
-
-    
-    
-
-    // 簡化商品數據的 DTO
-    private static class ItemSimpleResponse {
-        private int itemId;
-        private String itemName;
-        private BigDecimal itemPrice;
-        private String itemPhoto;
-
-        public ItemSimpleResponse(int itemId, String itemName, BigDecimal itemPrice, String itemPhoto) {
-            this.itemId = itemId;
-            this.itemName = itemName;
-            this.itemPrice = itemPrice;
-            this.itemPhoto = itemPhoto;
-        }
-
-        // Getters
-        public int getItemId() {
-            return itemId;
-        }
-
-        public String getItemName() {
-            return itemName;
-        }
-
-        public BigDecimal getItemPrice() {
-            return itemPrice;
-        }
-
-        public String getItemPhoto() {
-            return itemPhoto;
-        }
+        return toItemCards(itemSummaryRepository.findTop15ByOrderByItemIdDesc());
     }
 }
\ No newline at end of file
@@ -3,13 +3,8 @@ package com.example.ordermanagement.controller;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +13,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ItemPhotoHashes;
+import com.example.ordermanagement.image.PhotoUrls;
+import com.example.ordermanagement.image.UploadSessions;
 import com.example.ordermanagement.service.BrandService;
 import com.example.ordermanagement.service.CategoryService;
 import com.example.ordermanagement.service.ItemService;
@@ -27,12 +26,15 @@ import com.example.ordermanagement.model.Category;
 import com.example.ordermanagement.model.CategoryRepository;
 import com.example.ordermanagement.model.Item;
 import com.example.ordermanagement.model.ItemOption;
-import com.example.ordermanagement.model.ItemPhoto;
-import com.example.ordermanagement.model.ItemPhotoRepositry;
 import com.example.ordermanagement.model.ItemRepository;
 import com.example.ordermanagement.model.ItemTransportation;
+import com.example.ordermanagement.model.LoginBean;
 import com.example.ordermanagement.model.TransportationRepository;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
 @Controller
 public class ItemController {
 
@@ -48,7 +50,11 @@ public class ItemController {
     @Autowired
     private TransportationRepository transportationRepo;
     @Autowired
-    private ItemPhotoRepositry itemPhotoRepo;
+    private ItemPhotoHashes itemPhotoHashes;
+    @Autowired
+    private ImageResponses imageResponses;
+    @Autowired
+    private UploadSessions uploadSessions;
     
 
     // 顯示商品列表
@@ -56,8 +62,8 @@ public class ItemController {
     public String itemList(Model model) {
         List<Item> itemList = itemService.findAllItem();
         model.addAttribute("itemList", itemList);
-        model.addAttribute("categoryList", categoryService.findAll());
-        model.addAttribute("brandList", brandService.findAll());
+        model.addAttribute("categoryList", categoryService.findAllNames());
+        model.addAttribute("brandList", brandService.findAllNames());
         return "/item/itemListView";
     }
 
@@ -77,8 +83,8 @@ public class ItemController {
     @GetMapping("/item/addItem")
     public String addItem(Model model) {
         model.addAttribute("item", new Item());
-        model.addAttribute("categoryList", categoryService.findAll());
-        model.addAttribute("brandList", brandService.findAll());
+        model.addAttribute("categoryList", categoryService.findAllNames());
+        model.addAttribute("brandList", brandService.findAllNames());
         model.addAttribute("transportationList", transportationRepo.findAll());
         return "/item/itemAddView";
     }
@@ -88,20 +94,35 @@ public class ItemController {
     public String addItem(
             @ModelAttribute Item item,
             @RequestParam(required = false) List<Integer> transportationMethods,
-            @RequestParam(name = "files", required = false) MultipartFile[] files) throws IOException {
+            @RequestParam(name = "files", required = false) MultipartFile[] files,
+            @RequestParam(name = "uploadIds", required = false) List<String> uploadIds,
+            HttpSession session) throws IOException {
 
-        // 呼叫 Service 處理新增邏輯
-        itemService.addItem(item, transportationMethods, files);
+        checkUploadOwner(uploadIds, session);
+        // 呼叫 Service 處理新增邏輯（uploadIds 為已完成的分段上傳，見 /api/uploads）
+        itemService.addItem(item, transportationMethods, files, uploadIds);
         return "redirect:/item/itemList";
     }
 
+    // 分段上傳只能由建立的使用者使用
+    private void checkUploadOwner(List<String> uploadIds, HttpSession session) {
+        if (uploadIds == null || uploadIds.isEmpty()) {
+            return;
+        }
+        LoginBean user = (LoginBean) session.getAttribute("user");
+        if (user == null) {
+            throw new IllegalArgumentException("尚未登入，無法使用分段上傳");
+        }
+        uploadSessions.checkOwner(uploadIds, user.getUserId());
+    }
+
     // 顯示編輯商品頁面
     @GetMapping("/item/editItem")
     public String editItem(@RequestParam Integer id, Model model) {
         Item item = itemService.findItemById(id);
         model.addAttribute("item", item);
-        model.addAttribute("categoryList", categoryService.findAll());
-        model.addAttribute("brandList", brandService.findAll());
+        model.addAttribute("categoryList", categoryService.findAllNames());
+        model.addAttribute("brandList", brandService.findAllNames());
         model.addAttribute("transportationList", transportationRepo.findAll());
         return "/item/itemEditView";
     }
@@ -111,31 +132,23 @@ public class ItemController {
     public String editItemPost(
             @ModelAttribute Item item,
             @RequestParam(required = false) List<Integer> transportationMethods,
-            @RequestParam(name = "files", required = false) MultipartFile[] files) throws IOException {
-    	
-    	
-        // 呼叫 Service 處理編輯邏輯
-        itemService.updateItem(item, transportationMethods, files);
+            @RequestParam(name = "files", required = false) MultipartFile[] files,
+            @RequestParam(name = "uploadIds", required = false) List<String> uploadIds,
+            @RequestParam(name = "keepPhotoIds", required = false) List<Integer> keepPhotoIds,
+            HttpSession session) throws IOException {
+
+        checkUploadOwner(uploadIds, session);
+        // 呼叫 Service 處理編輯邏輯（keepPhotoIds 為保留的既有圖片，依顯示順序，第一張為主圖）
+        itemService.updateItem(item, transportationMethods, files, uploadIds, keepPhotoIds);
         return "redirect:/item/itemList";
     }
-    //顯示圖片
+    //顯示圖片（與 /itemPhoto/{id} 相同的快取標頭）
 	@GetMapping("/item/photo")
-	public ResponseEntity<?> downloadItemPhoto(@RequestParam Integer id) {
-		Optional<ItemPhoto> op = itemPhotoRepo.findById(id);
-		
-		if(op.isEmpty()) {
-//			return new ResponseEntity<>(HttpStatusCode.valueOf(404));
-			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-		}
-		
-		ItemPhoto itemPhoto = op.get();
-		byte[] image = itemPhoto.getPhotoFile();
-		
-		HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.IMAGE_JPEG);
-		
-		                          // body , header  , http status code
-		return new ResponseEntity<byte[]>(image, headers, HttpStatus.OK);
+	public void downloadItemPhoto(@RequestParam Integer id,
+			@RequestParam(value = "size", required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		imageResponses.serveImmutable(PhotoUrls.itemKey(id), size,
+				() -> itemPhotoHashes.load(id), request, response);
 	}
 	
 	
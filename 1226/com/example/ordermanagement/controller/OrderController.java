@@ -1,5 +1,7 @@
 package com.example.ordermanagement.controller;
 
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.PhotoUrls;
 import com.example.ordermanagement.model.Item;
 import com.example.ordermanagement.model.LoginBean;
 import com.example.ordermanagement.model.Order;
@@ -20,10 +22,11 @@ import jakarta.servlet.http.HttpSession;  // ★ 新增，使用 HttpSession
 import org.springframework.ui.Model;      // ★ 確保你有這個 import
 
 import java.time.LocalDate;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/orders")
@@ -38,6 +41,9 @@ public class OrderController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private PhotoUrls photoUrls;
+
     /**
      * 顯示訂單管理頁面（管理員）
      */
@@ -264,6 +270,7 @@ public class OrderController {
     public ResponseEntity<?> getBuyerOrdersData(@SessionAttribute("userId") Long userId) {
 
         var orders = orderService.getOrdersByBuyerId(userId);
+        var photos = primaryPhotos(orders);
         var response = orders.stream().map(order -> Map.of(
             "orderId", order.getOrderId(),
             "sellerName", order.getOrderItems().isEmpty() ? "未知" : order.getOrderItems().get(0).getSeller().getUserName(),
@@ -271,13 +278,10 @@ public class OrderController {
             "orderStatus", order.getOrderStatus(),
             "orderItems", order.getOrderItems().stream().map(orderItem -> {
                 Item item = orderItem.getItem();
-                String base64Photo = null;
-                if (item != null && item.getItemPhoto() != null && !item.getItemPhoto().isEmpty()) {
-                    base64Photo = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(item.getItemPhoto().get(0).getPhotoFile());
-                }
+                String photoUrl = item != null ? photos.get(item.getItemId()) : null;
                 return Map.of(
                     "itemName", item != null ? item.getItemName() : "未知",
-                    "itemPhotoUrl", base64Photo,
+                    "itemPhotoUrl", photoUrl != null ? photoUrl : PhotoUrls.PLACEHOLDER,
                     "itemPrice", item != null ? item.getItemPrice() : null,
                     "itemQuantity", orderItem.getItemQuantity()
                 );
@@ -348,6 +352,7 @@ public class OrderController {
     public ResponseEntity<?> getSellerOrdersData(@SessionAttribute("userId") Long userId) {
 
         var orders = orderService.getOrdersBySellerId(userId);
+        var photos = primaryPhotos(orders);
         var response = orders.stream().map(order -> Map.of(
             "orderId", order.getOrderId(),
             "buyerName", order.getBuyer() != null ? order.getBuyer().getUserName() : "未知",
@@ -357,13 +362,10 @@ public class OrderController {
             "shippingStatus", order.getShippingStatus(),
             "orderItems", order.getOrderItems().stream().map(orderItem -> {
                 Item item = orderItem.getItem();
-                String base64Photo = null;
-                if (item != null && item.getItemPhoto() != null && !item.getItemPhoto().isEmpty()) {
-                    base64Photo = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(item.getItemPhoto().get(0).getPhotoFile());
-                }
+                String photoUrl = item != null ? photos.get(item.getItemId()) : null;
                 return Map.of(
                     "itemName", item != null ? item.getItemName() : "未知",
-                    "itemPhotoUrl", base64Photo,
+                    "itemPhotoUrl", photoUrl != null ? photoUrl : PhotoUrls.PLACEHOLDER,
                     "itemPrice", item != null ? item.getItemPrice() : null,
                     "itemQuantity", orderItem.getItemQuantity()
                 );
@@ -425,4 +427,14 @@ public class OrderController {
         }
     }
 
+    // 訂單中所有商品的第一張圖片網址（itemId → 網址），一次查詢
+    private Map<Integer, String> primaryPhotos(List<Order> orders) {
+        Set<Integer> itemIds = orders.stream()
+            .flatMap(order -> order.getOrderItems().stream())
+            .map(OrderItem::getItem)
+            .filter(item -> item != null)
+            .map(Item::getItemId)
+            .collect(Collectors.toSet());
+        return photoUrls.primaryItemPhotos(itemIds, ImageUploadPipeline.SMALL);
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.ordermanagement.controller;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.PhotoUrls;
 import com.example.ordermanagement.model.ShippingInfo;
 import com.example.ordermanagement.model.ShippingInfoRepository;
 import com.example.ordermanagement.service.ShippingInfoService;
@@ -11,6 +13,11 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
 import java.util.*;
 
 @Controller
@@ -23,6 +30,9 @@ public class ShippingInfoController {
     @Autowired
     private ShippingInfoRepository shippingInfoRepository;
 
+    @Autowired
+    private ImageResponses imageResponses;
+
     /**
      * 返回物流追蹤頁面
      */
@@ -125,16 +135,27 @@ public class ShippingInfoController {
         }
     }
 
+    /**
+     * 取得物流單號圖片（圖片本身，列表的 shippingInfoImageUrl 指向這裡）
+     * 不存在回 404，沒有圖片回 204；圖片含地址與單號，只允許瀏覽器快取（Cache-Control: private）
+     */
+    @GetMapping("/image/{id}/raw")
+    public void getRawImage(@PathVariable Long id,
+        @RequestParam(value = "v", required = false) String version,
+        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageResponses.servePrivate(PhotoUrls.shippingKey(id), version, null,
+            () -> shippingInfoService.getStoredImage(id), request, response);
+    }
+
     /**
      * 取得物流單號圖片 (Base64 格式)
      */
     @GetMapping(value = "/image/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     public ResponseEntity<Map<String, String>> getImage(@PathVariable Long id) {
-        return shippingInfoService.getShippingInfoById(id)
-                .filter(info -> info.getShippingInfoImage() != null)
-                .map(info -> {
-                    String base64Image = Base64.getEncoder().encodeToString(info.getShippingInfoImage());
+        return shippingInfoService.getShippingInfoImage(id)
+                .map(image -> {
+                    String base64Image = Base64.getEncoder().encodeToString(image);
                     Map<String, String> response = new HashMap<>();
                     response.put("image", "data:image/png;base64," + base64Image);
                     return ResponseEntity.ok(response);
@@ -4,7 +4,7 @@ public class BrandDTO {
     private Integer brandId;
     private String brandName;
     private String brandInfo;
-    private String brandPhoto;  // 用來存放 Base64 編碼的圖片
+    private String brandPhoto;  // 圖片網址（/api/brand/photo?id=..&v=版本）
 
     // 建構子
     public BrandDTO(Integer brandId, String brandName, String brandInfo, String brandPhoto) {
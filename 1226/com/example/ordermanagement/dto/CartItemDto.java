@@ -3,7 +3,7 @@ package com.example.ordermanagement.dto;
 import java.math.BigDecimal;
 
 public class CartItemDto {
-    private Long cartItemId; // 修改為 Long
+    private Long cartItemId; // 修改為 Long；即商品選項 ID（購物車中每個選項只有一筆）
     private String itemName;
     private BigDecimal itemPrice;
     private int itemQuantity;
@@ -0,0 +1,41 @@
+package com.example.ordermanagement.dto;
+
+// PATCH /api/cart 的一個操作：add 增加數量、set 設為指定數量（0 為移除）、remove 移除
+public class CartOperation {
+
+    private String op;          // add / set / remove
+    private Integer optionId;   // 商品選項 ID
+    private Integer quantity;   // add、set 的數量
+
+    public CartOperation() {}
+
+    public CartOperation(String op, Integer optionId, Integer quantity) {
+        this.op = op;
+        this.optionId = optionId;
+        this.quantity = quantity;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Integer getOptionId() {
+        return optionId;
+    }
+
+    public void setOptionId(Integer optionId) {
+        this.optionId = optionId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -4,7 +4,7 @@ public class CategoryDTO {
     private Integer categoryId;
     private String categoryName;
     private String categoryInfo;
-    private String categoryPhoto;  // 用來存放 Base64 編碼的圖片
+    private String categoryPhoto;  // 圖片網址（/api/category/photo?id=..&v=版本）
 
     // 建構子
     public CategoryDTO(Integer categoryId, String categoryName, String categoryInfo, String categoryPhoto) {
@@ -0,0 +1,106 @@
+package com.example.ordermanagement.flashsale;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搶購模式的庫存紀錄檔（每個商品選項一個檔案，只附加寫入）
+ *
+ * 每筆被接受的庫存變動在回應前寫入一行「序號 保留變動 結帳數量」，再由批次寫回資料庫。
+ * 寫入後即在作業系統的快取中，應用程式當掉不會遺失；每次寫回前 force 到磁碟。
+ * 重新啟動時讀出序號大於 FlashSaleOption.appliedSeq 的紀錄補寫。
+ */
+public class FlashSaleLog implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+
+    public FlashSaleLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    public void append(Entry entry) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((entry.seq + " " + entry.reserved + " " + entry.committed + "\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * 清空紀錄檔（紀錄都已寫回資料庫時）
+     */
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 讀出序號大於 afterSeq 的紀錄；最後一行沒有換行（寫入到一半當掉）時略過
+     */
+    public static List<Entry> read(Path file, long afterSeq) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        String content = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        // 只處理以換行結尾的完整紀錄
+        for (String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n")) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length != 3) {
+                continue;
+            }
+            try {
+                Entry entry = new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]));
+                if (entry.seq > afterSeq) {
+                    entries.add(entry);
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("略過無法解析的搶購庫存紀錄：" + file + " " + line);
+            }
+        }
+        return entries;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 一筆庫存變動：reserved 為保留數量的變動（負數為歸還），committed 為結帳扣除的數量
+     */
+    public static final class Entry {
+        final long seq;
+        final long reserved;
+        final long committed;
+
+        public Entry(long seq, long reserved, long committed) {
+            this.seq = seq;
+            this.reserved = reserved;
+            this.committed = committed;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.ordermanagement.flashsale;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ordermanagement.model.FlashSaleOption;
+import com.example.ordermanagement.model.FlashSaleOptionRepository;
+import com.example.ordermanagement.model.ItemOptionRepositry;
+import com.example.ordermanagement.service.ItemSummaryService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 搶購模式的商品選項庫存
+ *
+ * 開啟後可購買數量載入記憶體中的 StripedStockCounter，加入購物車是否成功由記憶體決定，不必搶同一列 ItemOption 的鎖。
+ * 被接受的變動先寫入 FlashSaleLog，再由背景執行緒每 flush-interval 彙總成一句 UPDATE 寫回資料庫
+ * （同一交易更新 FlashSaleOption.appliedSeq），重新啟動時從紀錄檔補寫尚未寫回的部分。
+ * 保留在回應前就從記憶體扣除；保留、歸還與結帳都在交易提交後才寫入紀錄檔，回滾的交易不會留下紀錄（回滾時只歸還記憶體中的數量）。
+ *
+ * 記憶體中的計數只存在這個節點，搶購模式只適用單一節點部署；開啟後不要直接修改該選項的庫存，
+ * 應在開賣前開啟、結束後關閉（關閉時先寫回所有紀錄，之後回到資料庫的條件式 UPDATE）。
+ */
+@Component
+public class FlashSaleStock {
+
+    private static final long MAX_LOG_BYTES = 1024 * 1024; // 紀錄都已寫回且超過此大小時清空紀錄檔
+
+    @Autowired
+    private ItemOptionRepositry itemOptionRepo;
+
+    @Autowired
+    private FlashSaleOptionRepository flashSaleOptionRepo;
+
+    @Autowired
+    private ItemSummaryService itemSummaryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${stock.flash-sale.log-dir:data/flash-sale}")
+    private String logDir;
+
+    @Value("${stock.flash-sale.flush-interval-millis:200}")
+    private long flushIntervalMillis;
+
+    @Value("${stock.flash-sale.stripes:0}")
+    private int stripes;
+
+    private final Map<Integer, Sale> sales = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flash-sale-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TransactionTemplate transactionTemplate;
+
+    // 在接受請求前補寫上次未寫回的紀錄並載入庫存，否則資料庫的可購買數量會偏多
+    @PostConstruct
+    public void recover() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (stripes <= 0) {
+            stripes = Runtime.getRuntime().availableProcessors();
+        }
+        Files.createDirectories(Paths.get(logDir));
+        for (FlashSaleOption option : flashSaleOptionRepo.findAll()) {
+            int optionId = option.getOptionId();
+            List<FlashSaleLog.Entry> entries = FlashSaleLog.read(logFile(optionId), option.getAppliedSeq());
+            long seq = option.getAppliedSeq();
+            if (!entries.isEmpty()) {
+                seq = write(optionId, entries);
+                System.out.println("已補寫搶購庫存紀錄：選項 " + optionId + " " + entries.size() + " 筆");
+            }
+            Sale sale = load(optionId, seq);
+            if (!entries.isEmpty()) {
+                itemSummaryService.refreshStock(sale.itemId);
+            }
+        }
+        writer.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isActive(int optionId) {
+        return sales.containsKey(optionId);
+    }
+
+    /**
+     * 保留 quantity：足夠時從記憶體扣除並回傳 true，不足時回傳 false；不在搶購模式時回傳 null（由呼叫端改用資料庫）
+     */
+    public Boolean tryReserve(int optionId, int quantity) {
+        Sale sale = sales.get(optionId);
+        if (sale == null) {
+            return null;
+        }
+        if (!sale.counter.tryAcquire(quantity)) {
+            return sale.closed ? null : Boolean.FALSE;
+        }
+        if (sale.closed) {
+            sale.counter.release(quantity);
+            return null;
+        }
+        // 交易提交後才寫入紀錄檔；回滾時只需歸還記憶體中的數量
+        afterCompletion(rolledBack -> {
+            if (rolledBack) {
+                sale.counter.release(quantity);
+            } else {
+                apply(sale, quantity, 0);
+            }
+        });
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 歸還保留的 quantity（交易提交後才生效）；不在搶購模式時回傳 false
+     */
+    public boolean release(int optionId, int quantity) {
+        Sale sale = sales.get(optionId);
+        if (sale == null) {
+            return false;
+        }
+        afterCompletion(rolledBack -> {
+            if (!rolledBack && apply(sale, -quantity, 0)) {
+                sale.counter.release(quantity);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 保留的 quantity 轉為實際扣除（交易提交後才生效），可購買數量不變；不在搶購模式時回傳 false
+     */
+    public boolean commit(int optionId, int quantity) {
+        Sale sale = sales.get(optionId);
+        if (sale == null) {
+            return false;
+        }
+        afterCompletion(rolledBack -> {
+            if (!rolledBack) {
+                apply(sale, 0, quantity);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 開啟搶購模式，以資料庫目前的可購買數量載入記憶體
+     */
+    public synchronized void enable(int optionId) {
+        if (sales.containsKey(optionId)) {
+            throw new IllegalArgumentException("商品選項已開啟搶購模式: " + optionId);
+        }
+        if (itemOptionRepo.findItemIdById(optionId) == null) {
+            throw new IllegalArgumentException("無效的商品選項ID");
+        }
+        try {
+            Files.deleteIfExists(logFile(optionId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        transactionTemplate.executeWithoutResult(status -> flashSaleOptionRepo.save(new FlashSaleOption(optionId)));
+        load(optionId, 0);
+    }
+
+    /**
+     * 關閉搶購模式：寫回所有紀錄後改回資料庫的條件式 UPDATE
+     */
+    public synchronized void disable(int optionId) {
+        Sale sale = sales.get(optionId);
+        if (sale == null) {
+            throw new IllegalArgumentException("商品選項未開啟搶購模式: " + optionId);
+        }
+        // 持有鎖直到寫回完成，之後改走資料庫的請求看到的已是完整的數量（鎖的順序與 flush 相同）
+        synchronized (sale.flushLock) {
+            synchronized (sale) {
+                sale.closed = true;
+                flush(sale);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> flashSaleOptionRepo.deleteById(optionId));
+        sales.remove(optionId);
+        try {
+            sale.log.close();
+            Files.deleteIfExists(sale.log.getFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 各選項的剩餘數量與寫回進度
+     */
+    public Map<Integer, Map<String, Object>> stats() {
+        Map<Integer, Map<String, Object>> stats = new LinkedHashMap<>();
+        sales.forEach((optionId, sale) -> {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("available", sale.counter.available());
+            synchronized (sale) {
+                stat.put("seq", sale.seq);
+                stat.put("pending", sale.pending.size());
+            }
+            stat.put("appliedSeq", sale.appliedSeq);
+            stats.put(optionId, stat);
+        });
+        return stats;
+    }
+
+    private Sale load(int optionId, long seq) {
+        Integer available = itemOptionRepo.findAvailableById(optionId);
+        Sale sale;
+        try {
+            sale = new Sale(optionId, itemOptionRepo.findItemIdById(optionId),
+                    new StripedStockCounter(Math.max(0, available != null ? available : 0), stripes),
+                    new FlashSaleLog(logFile(optionId)));
+            // 已全部寫回資料庫，舊紀錄不再需要
+            sale.log.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sale.seq = seq;
+        sale.appliedSeq = seq;
+        sale.soldOut = sale.counter.available() <= 0;
+        sales.put(optionId, sale);
+        return sale;
+    }
+
+    // 寫入紀錄檔並排入寫回；搶購模式已關閉時回傳 false
+    private boolean record(Sale sale, long reserved, long committed) {
+        synchronized (sale) {
+            if (sale.closed) {
+                return false;
+            }
+            FlashSaleLog.Entry entry = new FlashSaleLog.Entry(sale.seq + 1, reserved, committed);
+            try {
+                sale.log.append(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sale.seq++;
+            sale.pending.add(entry);
+            return true;
+        }
+    }
+
+    // 交易提交後的變動；搶購模式在這之間被關閉時直接寫進資料庫，回傳 false
+    private boolean apply(Sale sale, long reserved, long committed) {
+        if (record(sale, reserved, committed)) {
+            return true;
+        }
+        transactionTemplate.executeWithoutResult(
+                status -> itemOptionRepo.applyFlashSale(sale.optionId, reserved, committed));
+        return false;
+    }
+
+    // 沒有進行中的交易時立即執行
+    private void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(false);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_ROLLED_BACK);
+            }
+        });
+    }
+
+    private void flushAll() {
+        for (Sale sale : sales.values()) {
+            try {
+                flush(sale);
+            } catch (RuntimeException e) {
+                // 紀錄仍在佇列與紀錄檔中，下一輪重試
+                System.out.println("搶購庫存寫回失敗：選項 " + sale.optionId + " " + e.getMessage());
+            }
+        }
+    }
+
+    private void flush(Sale sale) {
+        synchronized (sale.flushLock) {
+            List<FlashSaleLog.Entry> batch;
+            synchronized (sale) {
+                if (sale.pending.isEmpty()) {
+                    return;
+                }
+                batch = sale.pending;
+                sale.pending = new ArrayList<>();
+            }
+            try {
+                sale.log.force();
+                sale.appliedSeq = write(sale.optionId, batch);
+            } catch (IOException | RuntimeException e) {
+                synchronized (sale) {
+                    batch.addAll(sale.pending);
+                    sale.pending = batch;
+                }
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+            }
+
+            boolean soldOut = sale.counter.available() <= 0;
+            if (soldOut != sale.soldOut) {
+                sale.soldOut = soldOut;
+                itemSummaryService.refreshStock(sale.itemId);
+            }
+            try {
+                synchronized (sale) {
+                    if (sale.pending.isEmpty() && sale.log.size() > MAX_LOG_BYTES) {
+                        sale.log.truncate();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // 一批紀錄彙總成一句 UPDATE，回傳寫回的最後序號
+    private long write(int optionId, List<FlashSaleLog.Entry> entries) {
+        long reserved = 0;
+        long committed = 0;
+        long lastSeq = 0;
+        for (FlashSaleLog.Entry entry : entries) {
+            reserved += entry.reserved;
+            committed += entry.committed;
+            lastSeq = Math.max(lastSeq, entry.seq);
+        }
+        long totalReserved = reserved;
+        long totalCommitted = committed;
+        long seq = lastSeq;
+        transactionTemplate.executeWithoutResult(status -> {
+            itemOptionRepo.applyFlashSale(optionId, totalReserved, totalCommitted);
+            flashSaleOptionRepo.updateAppliedSeq(optionId, seq);
+        });
+        return seq;
+    }
+
+    private Path logFile(int optionId) {
+        return Paths.get(logDir).resolve("option-" + optionId + ".log");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        flushAll();
+        for (Sale sale : sales.values()) {
+            try {
+                sale.log.close();
+            } catch (IOException e) {
+                System.out.println("關閉搶購庫存紀錄檔失敗：" + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Sale {
+        final int optionId;
+        final Integer itemId;
+        final StripedStockCounter counter;
+        final FlashSaleLog log;
+        final Object flushLock = new Object();
+        long seq;                       // 最後寫入紀錄檔的序號（sale 鎖保護）
+        List<FlashSaleLog.Entry> pending = new ArrayList<>(); // 尚未寫回的紀錄（sale 鎖保護）
+        volatile boolean closed;        // 在 sale 鎖內設定
+        volatile long appliedSeq;
+        volatile boolean soldOut;
+
+        Sale(int optionId, Integer itemId, StripedStockCounter counter, FlashSaleLog log) {
+            this.optionId = optionId;
+            this.itemId = itemId;
+            this.counter = counter;
+            this.log = log;
+        }
+    }
+}
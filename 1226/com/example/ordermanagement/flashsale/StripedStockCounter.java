@@ -0,0 +1,89 @@
+package com.example.ordermanagement.flashsale;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分成多格的庫存計數
+ *
+ * 庫存平均分到各格，每次扣除只以 CAS 更新其中一格（從隨機一格開始找數量足夠的），
+ * 同時搶購的執行緒大多落在不同格，不會全部卡在同一個值上重試。各格間隔 PADDING 個 long，避免落在同一條 cache line。
+ * 各格都不足但總數足夠時（庫存快賣完、被分散在多格）改走加鎖的慢路徑合併扣除。
+ * 任何時候各格都不小於 0，不會超賣。
+ */
+public class StripedStockCounter {
+
+    private static final int PADDING = 8; // 8 個 long = 64 bytes
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    public StripedStockCounter(long stock, int stripes) {
+        if (stock < 0) {
+            throw new IllegalArgumentException("庫存不可為負數");
+        }
+        this.stripes = Math.max(1, stripes);
+        this.cells = new AtomicLongArray(this.stripes * PADDING);
+        for (int i = 0; i < this.stripes; i++) {
+            cells.set(i * PADDING, stock / this.stripes + (i < stock % this.stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * 扣除 quantity，數量不足時不變動並回傳 false
+     */
+    public boolean tryAcquire(long quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            long current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return acquireAcrossCells(quantity);
+    }
+
+    /**
+     * 歸還 quantity
+     */
+    public void release(long quantity) {
+        cells.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+    }
+
+    /**
+     * 目前剩餘數量（各格加總，並行更新時為近似值）
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    // 從各格湊出 quantity；湊不齊時（其他執行緒同時扣除）把已拿到的還回去
+    private synchronized boolean acquireAcrossCells(long quantity) {
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            int index = i * PADDING;
+            long current;
+            while ((current = cells.get(index)) > 0) {
+                long take = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    taken += take;
+                    break;
+                }
+            }
+        }
+        if (taken < quantity) {
+            if (taken > 0) {
+                release(taken);
+            }
+            return false;
+        }
+        return true;
+    }
+}
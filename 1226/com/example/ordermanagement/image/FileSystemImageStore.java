@@ -0,0 +1,149 @@
+package com.example.ordermanagement.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 存在本機檔案系統的 ImageStore
+ *
+ * 路徑以 hash 前兩層分目錄：{root}/ab/cd/abcd...（64 字元），單一目錄的檔案數不會過多；衍生圖放在原圖旁。
+ * 先寫到 {root}/tmp 再以原子搬移放到最終位置，讀取端不會看到寫到一半的檔案；
+ * 同一內容同時上傳時，後搬移的一方發現檔案已存在就刪掉自己的暫存檔。
+ */
+@Component
+public class FileSystemImageStore implements ImageStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT = Pattern.compile("[0-9a-z]{1,16}");
+
+    private final Path root;
+    private final Path tmp;
+
+    public FileSystemImageStore(@Value("${image.store.root:uploads/images}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tmp = this.root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    @Override
+    public String save(byte[] image) throws IOException {
+        String hash = ImageStore.hash(image);
+        if (exists(hash)) {
+            return hash;
+        }
+        Path temp = Files.createTempFile(tmp, "img", ".part");
+        try {
+            Files.write(temp, image);
+            return moveIntoPlace(temp, hash);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String save(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(tmp, "img", ".part");
+        try {
+            try (InputStream source = new DigestInputStream(in, digest);
+                    OutputStream out = Files.newOutputStream(temp)) {
+                source.transferTo(out);
+            }
+            return moveIntoPlace(temp, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.isRegularFile(resolve(hash));
+    }
+
+    @Override
+    public Path file(String hash) {
+        Path file = resolve(hash);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    @Override
+    public void saveVariant(String hash, String name, byte[] image) throws IOException {
+        Path target = resolveVariant(hash, name);
+        Path temp = Files.createTempFile(tmp, "img", ".part");
+        try {
+            Files.write(temp, image);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Path variantFile(String hash, String name) {
+        Path file = resolveVariant(hash, name);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    @Override
+    public byte[] read(String hash) throws IOException {
+        try {
+            return Files.readAllBytes(resolve(hash));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private String moveIntoPlace(Path temp, String hash) throws IOException {
+        Path target = resolve(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 另一個請求剛好存了相同內容
+        }
+        return hash;
+    }
+
+    // hash 只允許 64 個小寫十六進位字元，避免被組成 ../ 之類的路徑
+    private Path resolve(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("圖片 hash 格式錯誤: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // 衍生圖放在原圖旁：{hash}.{name}
+    private Path resolveVariant(String hash, String name) {
+        if (name == null || !VARIANT.matcher(name).matches()) {
+            throw new IllegalArgumentException("衍生圖名稱格式錯誤: " + name);
+        }
+        return resolve(hash).resolveSibling(hash + "." + name);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
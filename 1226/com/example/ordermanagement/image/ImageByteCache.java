@@ -0,0 +1,377 @@
+package com.example.ordermanagement.image;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 熱門圖片內容的 off-heap 快取
+ *
+ * 圖片內容放在 direct ByteBuffer 的 slab 中，以固定大小的 block 配置，不佔 Java heap，也不會在每次請求產生大陣列。
+ * 命中時圖片端點不查資料庫、不開檔案，直接由 block 寫到回應。
+ *
+ * 淘汰採 LRU，並以 TinyLFU 決定是否收錄：空間不足時，新圖片的近期存取頻率要高於將被淘汰的圖片才會放入，
+ * 避免爬蟲掃過全部圖片時把首頁的熱門圖片擠掉。頻率以 count-min sketch 估計，並定期減半以反映近期熱度。
+ *
+ * 讀取中的項目以引用計數保護，被淘汰或失效時要等所有讀取結束才釋放 block。
+ */
+@Component
+public class ImageByteCache {
+
+    static final int BLOCK_SIZE = 16 * 1024;
+    private static final int BLOCKS_PER_SLAB = 256; // 每個 slab 4 MB
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final int maxBlocks;
+
+    // 依預算預先配置長度，grow 只寫入新的位置；讀寫 block 時不持有鎖，不能用會重新配置內部陣列的 ArrayList
+    private final ByteBuffer[] slabs;
+    private int slabCount;
+    private int[] freeBlocks;
+    private int freeCount;
+    private int allocatedBlocks;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    // 每次失效都遞增；讀取期間版本變了就不放入，避免把舊圖片放回快取
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+    private long invalidations;
+    private long usedBytes;
+
+    public ImageByteCache(@Value("${image.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, maxBytes / BLOCK_SIZE);
+        this.slabs = new ByteBuffer[(maxBlocks + BLOCKS_PER_SLAB - 1) / BLOCKS_PER_SLAB];
+        this.freeBlocks = new int[0];
+        this.sketch = new FrequencySketch(Math.max(1024, maxBlocks));
+    }
+
+    /**
+     * 快取中的圖片；使用完畢必須呼叫 release
+     */
+    public final class Entry {
+        private final String key;
+        private final int[] blocks;
+        private final long length;
+        private final String etag;
+        private final long lastModified;
+        private final String contentType;
+        private int refs = 1; // 快取本身持有一個引用
+        private boolean removed;
+
+        private Entry(String key, int[] blocks, long length, String etag, long lastModified, String contentType) {
+            this.key = key;
+            this.blocks = blocks;
+            this.length = length;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * 寫出 [start, end) 的內容
+         */
+        public void writeTo(WritableByteChannel out, long start, long end) throws IOException {
+            for (long position = start; position < end; ) {
+                int offset = (int) (position % BLOCK_SIZE);
+                int length = (int) Math.min(BLOCK_SIZE - offset, end - position);
+                ByteBuffer view = block(blocks[(int) (position / BLOCK_SIZE)]);
+                view.position(view.position() + offset).limit(view.position() + length);
+                while (view.hasRemaining()) {
+                    out.write(view);
+                }
+                position += length;
+            }
+        }
+
+        public void release() {
+            synchronized (ImageByteCache.this) {
+                unref(this);
+            }
+        }
+    }
+
+    /**
+     * 取得快取中的圖片並增加引用，沒有時回傳 null
+     */
+    public synchronized Entry acquire(String key) {
+        sketch.increment(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.refs++;
+        return entry;
+    }
+
+    /**
+     * 讀取圖片前取得版本，放入時一併傳入
+     */
+    public synchronized long stamp() {
+        return version;
+    }
+
+    public boolean fits(long length) {
+        return length > 0 && length <= maxEntryBytes;
+    }
+
+    /**
+     * 放入 heap 上的圖片（舊資料的 BLOB）
+     */
+    public void put(String key, byte[] image, String etag, long lastModified, String contentType, long stamp)
+            throws IOException {
+        put(key, image.length, etag, lastModified, contentType, stamp, (view, position) -> {
+            view.put(image, (int) position, view.remaining());
+        });
+    }
+
+    /**
+     * 由檔案直接讀進 block，不經過 heap
+     */
+    public void put(String key, FileChannel channel, long length, String etag, long lastModified, String contentType,
+            long stamp) throws IOException {
+        put(key, length, etag, lastModified, contentType, stamp, (view, position) -> {
+            while (view.hasRemaining()) {
+                if (channel.read(view, position + view.position()) < 0) {
+                    throw new EOFException("圖片長度與檔案不符");
+                }
+            }
+        });
+    }
+
+    private interface BlockFiller {
+        // 由 position 開始填滿 view（view.position() 從 0 算起）
+        void fill(ByteBuffer view, long position) throws IOException;
+    }
+
+    private void put(String key, long length, String etag, long lastModified, String contentType, long stamp,
+            BlockFiller filler) throws IOException {
+        if (!fits(length)) {
+            return;
+        }
+        int[] blocks = allocate(key, (int) ((length + BLOCK_SIZE - 1) / BLOCK_SIZE));
+        if (blocks == null) {
+            return;
+        }
+        boolean published = false;
+        try {
+            for (int i = 0; i < blocks.length; i++) {
+                long position = (long) i * BLOCK_SIZE;
+                ByteBuffer view = block(blocks[i]);
+                ByteBuffer slice = view.slice().limit((int) Math.min(BLOCK_SIZE, length - position));
+                filler.fill(slice, position);
+            }
+            synchronized (this) {
+                if (stamp == version && !entries.containsKey(key)) {
+                    entries.put(key, new Entry(key, blocks, length, etag, lastModified, contentType));
+                    usedBytes += length;
+                    published = true;
+                }
+            }
+        } finally {
+            if (!published) {
+                synchronized (this) {
+                    free(blocks);
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除 key 與其各尺寸（key@尺寸）的圖片
+     */
+    public synchronized void invalidate(String key) {
+        version++;
+        String prefix = key + "@";
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.key.equals(key) || entry.key.startsWith(prefix)) {
+                it.remove();
+                invalidations++;
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * 命中率等統計數字
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("usedBytes", usedBytes);
+        stats.put("allocatedBytes", (long) allocatedBlocks * BLOCK_SIZE);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", evictions);
+        stats.put("rejections", rejections);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    // 配置 count 個 block；空間不足時依 LRU 淘汰，但新項目的頻率不高於被淘汰者時放棄放入
+    private synchronized int[] allocate(String key, int count) {
+        if (count > maxBlocks) {
+            return null;
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (freeCount < count && allocatedBlocks + count - freeCount > maxBlocks) {
+            if (!eldest.hasNext()) {
+                return null; // 剩下的 block 都還在讀取中
+            }
+            Entry victim = eldest.next();
+            if (sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                rejections++;
+                return null;
+            }
+            eldest.remove();
+            evictions++;
+            remove(victim);
+        }
+        while (freeCount < count) {
+            grow();
+        }
+        int[] blocks = new int[count];
+        for (int i = 0; i < count; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+        }
+        return blocks;
+    }
+
+    // 新增一個 slab（最後一個 slab 可能小於 BLOCKS_PER_SLAB，不超過預算）
+    private void grow() {
+        int blocks = Math.min(BLOCKS_PER_SLAB, maxBlocks - allocatedBlocks);
+        int first = slabCount * BLOCKS_PER_SLAB;
+        slabs[slabCount++] = ByteBuffer.allocateDirect(blocks * BLOCK_SIZE);
+        if (freeBlocks.length < freeCount + blocks) {
+            freeBlocks = Arrays.copyOf(freeBlocks, Math.max(freeCount + blocks, freeBlocks.length * 2));
+        }
+        for (int i = blocks - 1; i >= 0; i--) {
+            freeBlocks[freeCount++] = first + i;
+        }
+        allocatedBlocks += blocks;
+    }
+
+    private ByteBuffer block(int block) {
+        ByteBuffer slab = slabs[block / BLOCKS_PER_SLAB].duplicate();
+        int offset = (block % BLOCKS_PER_SLAB) * BLOCK_SIZE;
+        return slab.position(offset).limit(offset + BLOCK_SIZE);
+    }
+
+    private void remove(Entry entry) {
+        entry.removed = true;
+        usedBytes -= entry.length;
+        unref(entry);
+    }
+
+    private void unref(Entry entry) {
+        if (--entry.refs == 0 && entry.removed) {
+            free(entry.blocks);
+        }
+    }
+
+    private void free(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * count-min sketch（4 組 hash，每格上限 15），累計次數達 10 倍表格大小時全部減半
+     */
+    static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+
+        private final int[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(64, expectedEntries - 1)) << 1;
+            this.table = new int[size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (table[index] < MAX_COUNT) {
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, table[indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int i) {
+            int h = hash * (0x9E3779B9 + 2 * i + 1);
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xED5AD4BB;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ordermanagement.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把舊資料的圖片 BLOB 搬到 ImageStore
+ *
+ * 以 --image.store.migrate=true 啟動時執行一次：依主鍵分批讀出尚未搬移的 BLOB，
+ * 以 getBinaryStream 邊讀邊寫入檔案（不把整批圖片讀進 heap），寫入 hash 後清空 BLOB。
+ * 所有圖片同時排入衍生圖產生（圖片端點一律回傳衍生圖）。可以中斷後重新執行，已有 hash 的資料會略過。
+ */
+@Component
+@ConditionalOnProperty(name = "image.store.migrate", havingValue = "true")
+public class ImageMigration implements ApplicationRunner {
+
+    // 資料表、主鍵、BLOB 欄位、hash 欄位
+    private static final String[][] TABLES = {
+            { "item_photo", "id", "photoFile", "photoHash" },
+            { "Brand", "brandId", "brandPhoto", "brandPhotoHash" },
+            { "Category", "categoryId", "categoryPhoto", "categoryPhotoHash" },
+            { "shipping_info", "shipping_info_id", "shipping_info_image", "shipping_info_image_hash" },
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageUploadPipeline imageUploadPipeline;
+
+    @Value("${image.store.migrate.batch-size:50}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String[] table : TABLES) {
+            long start = System.currentTimeMillis();
+            int count = migrate(table[0], table[1], table[2], table[3]);
+            System.out.println("圖片搬移完成：" + table[0] + " " + count + " 筆，耗時 "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private int migrate(String table, String id, String blob, String hash) {
+        String select = "SELECT TOP (?) " + id + ", " + blob + " FROM " + table
+                + " WHERE " + id + " > ? AND " + hash + " IS NULL AND DATALENGTH(" + blob + ") > 0"
+                + " ORDER BY " + id;
+        String update = "UPDATE " + table + " SET " + hash + " = ?, " + blob + " = NULL"
+                + " WHERE " + id + " = ? AND " + hash + " IS NULL";
+        int total = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(select, rs -> {
+                List<Object[]> rows = new ArrayList<>();
+                while (rs.next()) {
+                    long rowId = rs.getLong(1);
+                    try (InputStream in = rs.getBinaryStream(2)) {
+                        String saved = imageStore.save(in);
+                        imageUploadPipeline.submit(saved);
+                        rows.add(new Object[] { saved, rowId });
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(table + " " + rowId + " 圖片搬移失敗", e);
+                    }
+                }
+                return rows;
+            }, batchSize, lastId);
+            if (batch.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate(update, batch);
+            total += batch.size();
+            lastId = (Long) batch.get(batch.size() - 1)[1];
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.ordermanagement.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 所有圖片端點共用的回應：強 ETag、Last-Modified、Cache-Control、304 Not Modified 與 Range
+ *
+ * 網址帶有版本（商品圖片以不會重複使用的圖片 ID 為網址；品牌、分類圖片帶 v=內容版本）時，
+ * 回應 Cache-Control: immutable 讓瀏覽器一年內不必再詢問；否則回應 no-cache，每次以 ETag 重新驗證。
+ * 已記住版本的圖片重新驗證時直接回 304，不查資料庫也不讀檔案；熱門圖片的內容由 ImageByteCache 直接回應。
+ *
+ * 帶 size 時回傳對應尺寸的縮圖（由 ImageUploadPipeline 產生），不帶時回傳長邊上限 MAX_SIZE 的版本。
+ * 存在 ImageStore 的圖片與 StoredImage.ofFile 的檔案不讀進 heap：Tomcat 支援 sendfile 時交給 sendfile，
+ * 否則以 FileChannel.transferTo 直接寫到回應。Content-Type 依檔頭判斷（PNG / JPEG / GIF / WebP）。
+ */
+@Component
+public class ImageResponses {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    // 含個人資料的圖片只允許瀏覽器快取，不讓 proxy / CDN 等共用快取保存
+    private static final CacheControl PRIVATE_IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+    private static final CacheControl PRIVATE_REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    // Tomcat 的 sendfile 請求屬性（與 DefaultServlet 相同的用法）
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long[] UNSATISFIABLE = new long[0];
+    private static final int SNIFF_LENGTH = 12;
+
+    @Autowired
+    private ImageVersions imageVersions;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageByteCache imageByteCache;
+
+    /**
+     * 網址對應的內容永遠不變的圖片（例如 /itemPhoto/{id}），size 為要求的長邊像素（可為 null）
+     */
+    public void serveImmutable(String key, Integer size, Supplier<StoredImage> loader,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(key, null, true, true, size, loader, request, response);
+    }
+
+    /**
+     * 內容可能被更新的圖片，requestedVersion 為網址上的 v 參數（可為 null）
+     */
+    public void serve(String key, String requestedVersion, Integer size, Supplier<StoredImage> loader,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(key, requestedVersion, false, true, size, loader, request, response);
+    }
+
+    /**
+     * 與 serve 相同，但圖片含個人資料（例如物流單的地址與單號），回應 Cache-Control: private
+     */
+    public void servePrivate(String key, String requestedVersion, Integer size, Supplier<StoredImage> loader,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(key, requestedVersion, false, false, size, loader, request, response);
+    }
+
+    /**
+     * 圖片更新或刪除後移除記住的版本與快取內容（含各尺寸）
+     */
+    public void evict(String key) {
+        imageVersions.evict(key);
+        imageByteCache.invalidate(key);
+    }
+
+    private void serve(String key, String requestedVersion, boolean immutable, boolean shared, Integer size,
+            Supplier<StoredImage> loader, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String variant = ImageUploadPipeline.variantName(size);
+        String cacheKey = size != null ? key + "@" + variant : key;
+
+        // 已記住版本時，重新驗證不必讀取圖片
+        String cached = imageVersions.cached(cacheKey);
+        if (cached != null && isNotModified(request, cached, imageVersions.lastModified(cacheKey))) {
+            notModified(response, cached, imageVersions.lastModified(cacheKey),
+                    cacheControl(immutable, shared, cached, requestedVersion));
+            return;
+        }
+
+        // 熱門圖片直接由 off-heap 快取回應，不查資料庫也不開檔案
+        ImageByteCache.Entry entry = imageByteCache.acquire(cacheKey);
+        if (entry != null) {
+            try {
+                respond(request, response, entry.getEtag(), entry.getLastModified(),
+                        cacheControl(immutable, shared, entry.getEtag(), requestedVersion), entry.getContentType(),
+                        entry.getLength(), (start, end) -> entry.writeTo(Channels.newChannel(response.getOutputStream()), start, end));
+            } finally {
+                entry.release();
+            }
+            return;
+        }
+
+        long stamp = imageByteCache.stamp();
+        StoredImage image = loader.get();
+        if (image == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (image.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
+        }
+        if (!image.isStored() && image.getFile() == null) {
+            // 尚未搬移的舊資料沒有縮圖與修改時間，一律回傳原圖
+            byte[] bytes = image.getBytes();
+            String etag = imageVersions.version(cacheKey, bytes);
+            String contentType = mediaType(bytes, bytes.length);
+            imageByteCache.put(cacheKey, bytes, etag, -1, contentType, stamp);
+            respond(request, response, etag, -1, cacheControl(immutable, shared, etag, requestedVersion), contentType,
+                    bytes.length, (start, end) -> response.getOutputStream().write(bytes, (int) start, (int) (end - start)));
+            return;
+        }
+
+        Path file;
+        long lastModified;
+        boolean pending;
+        String etag;
+        CacheControl cacheControl;
+        if (image.getFile() != null) {
+            // 不在 ImageStore 的檔案沒有縮圖，內容也不會改變：以修改時間與大小作為版本，不必讀完整個檔案計算 hash
+            file = image.getFile();
+            lastModified = lastModified(file);
+            pending = false;
+            etag = imageVersions.remember(cacheKey,
+                    Long.toHexString(lastModified) + "." + Long.toHexString(Files.size(file)), lastModified);
+            cacheControl = cacheControl(immutable, shared, etag, requestedVersion);
+        } else {
+            String version = ImageStore.version(image.getHash());
+            file = imageStore.variantFile(image.getHash(), variant);
+            boolean fallback = file == null;
+            if (fallback) {
+                file = imageStore.file(image.getHash());
+                if (file == null) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+            }
+            lastModified = lastModified(file);
+            pending = fallback; // 未指定大小時也是取 2048 的衍生圖，原圖不可當成結果快取
+            if (pending) {
+                // 縮圖還沒產生：先回傳原圖，但不可長期快取也不記住版本，之後才拿得到縮圖
+                etag = version;
+                cacheControl = shared ? REVALIDATE : PRIVATE_REVALIDATE;
+            } else {
+                etag = imageVersions.remember(cacheKey, version + "-" + variant, lastModified);
+                cacheControl = cacheControl(immutable, shared, etag, requestedVersion);
+            }
+        }
+
+        Path source = file;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(SNIFF_LENGTH);
+            channel.read(head, 0);
+            String contentType = mediaType(head.array(), head.position());
+            long length = channel.size();
+            if (!pending) {
+                imageByteCache.put(cacheKey, channel, length, etag, lastModified, contentType, stamp);
+            }
+            respond(request, response, etag, lastModified, cacheControl, contentType, length,
+                    (start, end) -> sendFile(source, channel, start, end, request, response));
+        }
+    }
+
+    // 寫出 [start, end) 的內容
+    private interface Body {
+        void write(long start, long end) throws IOException;
+    }
+
+    // 條件式 GET、Range 與共同標頭，最後寫出需要的範圍（HEAD 不寫內容）
+    private static void respond(HttpServletRequest request, HttpServletResponse response, String etag,
+            long lastModified, CacheControl cacheControl, String contentType, long length, Body body) throws IOException {
+        if (isNotModified(request, etag, lastModified)) {
+            notModified(response, etag, lastModified, cacheControl);
+            return;
+        }
+        writeValidators(response, etag, lastModified, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(contentType);
+        long[] range = range(request, etag, lastModified, length);
+        if (startBody(response, range, length) && !isHead(request)) {
+            body.write(range != null ? range[0] : 0, range != null ? range[1] + 1 : length);
+        }
+    }
+
+    // 設定 200 / 206 / 416 與內容長度，回傳是否需要寫出內容
+    private static boolean startBody(HttpServletResponse response, long[] range, long size) {
+        if (range == UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return false;
+        }
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+            response.setContentLengthLong(range[1] - range[0] + 1);
+        } else {
+            response.setContentLengthLong(size);
+        }
+        return true;
+    }
+
+    // [start, end) 的檔案內容
+    private static void sendFile(Path file, FileChannel channel, long start, long end,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 回應送出後由 Tomcat 以 sendfile 從檔案直接傳到 socket
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        for (long position = start; position < end; ) {
+            position += channel.transferTo(position, end - position, out);
+        }
+    }
+
+    /**
+     * 條件式 GET：有 If-None-Match 時只比對 ETag，否則比對 If-Modified-Since（RFC 9110 的優先順序）
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return lastModified >= 0 && ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * 要求的位元組範圍 {start, end}（含 end）；沒有 Range、If-Range 不符或為多段範圍時回傳 null（整張圖片），
+     * 範圍超出檔案大小時回傳 UNSATISFIABLE
+     */
+    private static long[] range(HttpServletRequest request, String etag, long lastModified, long size) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        if (!ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // bytes=-500：最後 500 bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            if (start >= size || start > end) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null; // 格式錯誤的 Range 依規範忽略
+        }
+    }
+
+    // If-Range 可以是強 ETag 或日期，不符時應回傳整張圖片
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals("\"" + etag + "\"");
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return lastModified >= 0 && date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isHead(HttpServletRequest request) {
+        return "HEAD".equals(request.getMethod());
+    }
+
+    private static long lastModified(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis();
+    }
+
+    private static void notModified(HttpServletResponse response, String etag, long lastModified,
+            CacheControl cacheControl) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        writeValidators(response, etag, lastModified, cacheControl);
+    }
+
+    private static void writeValidators(HttpServletResponse response, String etag, long lastModified,
+            CacheControl cacheControl) {
+        response.setHeader(HttpHeaders.ETAG, "\"" + etag + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+    }
+
+    // ETag 為「內容版本」或「內容版本-尺寸」，網址上的 v 只帶內容版本
+    private static CacheControl cacheControl(boolean immutable, boolean shared, String etag, String requestedVersion) {
+        int dash = etag.indexOf('-');
+        String version = dash < 0 ? etag : etag.substring(0, dash);
+        if (immutable || version.equals(requestedVersion)) {
+            return shared ? IMMUTABLE : PRIVATE_IMMUTABLE;
+        }
+        return shared ? REVALIDATE : PRIVATE_REVALIDATE;
+    }
+
+    // If-None-Match 可能是 *、單一或逗號分隔的多個 ETag（比較時忽略 W/ 前綴）
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String expected = "\"" + etag + "\"";
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 依檔頭判斷圖片格式，無法辨識時回傳 application/octet-stream（搭配 nosniff，瀏覽器不會猜成其他型別）
+     */
+    static String mediaType(byte[] head, int length) {
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(head, length, 'R', 'I', 'F', 'F') && length >= 12
+                && new String(head, 8, 4, StandardCharsets.US_ASCII).equals("WEBP")) {
+            return "image/webp";
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
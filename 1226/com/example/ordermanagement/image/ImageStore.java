@@ -0,0 +1,74 @@
+package com.example.ordermanagement.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * 以內容定址的圖片儲存：圖片以 SHA-256（64 字元十六進位）為 key，實體只存 hash
+ *
+ * 相同內容只存一份，同一個 hash 的內容永遠不變，可直接作為 ETag 與快取版本。
+ */
+public interface ImageStore {
+
+    /**
+     * 儲存圖片並回傳 hash，已存在時不重複寫入
+     */
+    String save(byte[] image) throws IOException;
+
+    /**
+     * 邊讀邊寫入並計算 hash，不把整張圖片讀進記憶體
+     */
+    String save(InputStream in) throws IOException;
+
+    boolean exists(String hash);
+
+    /**
+     * 圖片所在的本機檔案（用於零複製傳送），不存在時回傳 null
+     */
+    Path file(String hash);
+
+    /**
+     * 儲存由原圖產生的衍生圖（例如縮圖），以原圖 hash 與名稱存放
+     */
+    void saveVariant(String hash, String name, byte[] image) throws IOException;
+
+    /**
+     * 衍生圖所在的本機檔案，尚未產生時回傳 null
+     */
+    Path variantFile(String hash, String name);
+
+    /**
+     * 讀出整張圖片，不存在時回傳 null
+     */
+    byte[] read(String hash) throws IOException;
+
+    /**
+     * 讀出實體上的圖片：有 hash 時讀 ImageStore，否則回傳尚未搬移的 BLOB
+     */
+    default byte[] read(String hash, Supplier<byte[]> legacy) throws IOException {
+        return hash != null ? read(hash) : legacy.get();
+    }
+
+    /**
+     * hash 對應的 ETag / 網址版本（與 ImageVersions.hash 相同，取前 16 bytes）
+     */
+    static String version(String hash) {
+        return hash.substring(0, 32);
+    }
+
+    /**
+     * 內容的 hash（與 save 回傳的相同），用來比對尚未搬移的 BLOB 與已存的圖片
+     */
+    static String hash(byte[] image) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
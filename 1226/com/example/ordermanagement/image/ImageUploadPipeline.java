@@ -0,0 +1,277 @@
+package com.example.ordermanagement.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 圖片上傳流程：原圖存進 ImageStore 後，在背景產生固定尺寸的衍生圖
+ *
+ * 每張圖只解碼一次（過大的圖以 subsampling 解碼），先縮成上限 MAX_SIZE 的大圖，再由大到小依序縮出 1080 / 480 / 160，
+ * 重新編碼同時去掉 EXIF 等 metadata。衍生圖以「原圖 hash + 尺寸」存放，內容由原圖決定，可與原圖一樣長期快取。
+ *
+ * 背景工作使用固定數量的執行緒與有上限的佇列；佇列滿時由上傳的請求執行緒自己處理（CallerRunsPolicy），
+ * 讓大量上傳自然放慢，而不是無限制地堆積工作。衍生圖尚未產生時，圖片端點會先回傳原圖。
+ *
+ * 一次上傳多張圖片時（uploadAll），原圖的讀取、hash 與寫檔也分散到另一組有上限的執行緒，
+ * 全部完成後才回傳，結果順序與傳入順序相同。
+ */
+@Component
+public class ImageUploadPipeline {
+
+    public static final int SMALL = 160;    // 購物車、訂單
+    public static final int MEDIUM = 480;   // 商品列表卡片
+    public static final int LARGE = 1080;   // 商品頁
+    public static final int MAX_SIZE = 2048; // 原圖長邊上限，不帶 size 時回傳
+
+    private static final int[] SIZES = { SMALL, MEDIUM, LARGE, MAX_SIZE };
+    private static final long MAX_PIXELS = 100_000_000L; // 解碼前檢查，避免超大圖片吃光記憶體
+    private static final float JPEG_QUALITY = 0.85f;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor ingestExecutor;
+
+    public ImageUploadPipeline(@Value("${image.thumbnails.workers:2}") int workers,
+            @Value("${image.thumbnails.queue-capacity:100}") int queueCapacity,
+            @Value("${image.upload.workers:4}") int uploadWorkers,
+            @Value("${image.upload.queue-capacity:32}") int uploadQueueCapacity) {
+        this.executor = newExecutor("image-thumbnails", workers, queueCapacity);
+        this.ingestExecutor = newExecutor("image-ingest", uploadWorkers, uploadQueueCapacity);
+    }
+
+    // 固定數量的 daemon 執行緒與有上限的佇列，佇列滿時由呼叫端執行緒自己處理
+    private static ThreadPoolExecutor newExecutor(String name, int workers, int queueCapacity) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 儲存上傳的圖片並排入衍生圖產生，回傳原圖 hash
+     */
+    public String upload(InputStream in) throws IOException {
+        String hash = imageStore.save(in);
+        submit(hash);
+        return hash;
+    }
+
+    /**
+     * 同時處理多張圖片的上傳（每個工作回傳原圖 hash），全部完成後依傳入順序回傳 hash；
+     * 任何一張失敗時取消其餘尚未完成的工作並丟出該例外（已存好的原圖內容定址，留著不影響其他資料）
+     */
+    public List<String> uploadAll(List<Callable<String>> uploads) throws IOException {
+        if (uploads.size() <= 1) {
+            List<String> hashes = new ArrayList<>(uploads.size());
+            for (Callable<String> upload : uploads) {
+                hashes.add(call(upload));
+            }
+            return hashes;
+        }
+        ExecutorCompletionService<String> completion = new ExecutorCompletionService<>(ingestExecutor);
+        Map<Future<String>, Integer> positions = new HashMap<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            positions.put(completion.submit(uploads.get(i)), i);
+        }
+        String[] hashes = new String[uploads.size()];
+        try {
+            // 依完成順序取結果，第一個失敗就不必等其他圖片
+            for (int done = 0; done < hashes.length; done++) {
+                Future<String> future = completion.take();
+                hashes[positions.get(future)] = future.get();
+            }
+            return Arrays.asList(hashes);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("圖片上傳被中斷");
+        } finally {
+            for (Future<String> future : positions.keySet()) {
+                future.cancel(true); // 已完成的不受影響
+            }
+        }
+    }
+
+    private static String call(Callable<String> upload) throws IOException {
+        try {
+            return upload.call();
+        } catch (Exception e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException("圖片上傳失敗: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * 排入衍生圖產生（已產生過的會略過）
+     */
+    public void submit(String hash) {
+        if (imageStore.variantFile(hash, variantName(SMALL)) != null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generate(hash);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("縮圖產生失敗：" + hash + " " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 請求的尺寸對應的衍生圖名稱：取不小於 size 的最小尺寸，size 為 null 或超過上限時為 MAX_SIZE
+     */
+    public static String variantName(Integer size) {
+        if (size != null) {
+            for (int candidate : SIZES) {
+                if (size <= candidate) {
+                    return String.valueOf(candidate);
+                }
+            }
+        }
+        return String.valueOf(MAX_SIZE);
+    }
+
+    void generate(String hash) throws IOException {
+        Path file = imageStore.file(hash);
+        if (file == null) {
+            return;
+        }
+        BufferedImage image = decode(file);
+        if (image == null) {
+            return; // 不是 ImageIO 能解碼的格式，之後一律回傳原圖
+        }
+        boolean alpha = image.getColorModel().hasAlpha();
+        // 由大到小，每一層由上一層縮小，縮放成本隨尺寸遞減
+        for (int i = SIZES.length - 1; i >= 0; i--) {
+            image = scale(image, SIZES[i], alpha);
+            imageStore.saveVariant(hash, String.valueOf(SIZES[i]), encode(image, alpha));
+        }
+    }
+
+    // 只解碼一次；長邊超過 MAX_SIZE 數倍時以 subsampling 解碼，不必先產生完整解析度的點陣圖
+    private static BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true); // 略過 metadata
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("圖片尺寸過大: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(width, height) / MAX_SIZE;
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 依長邊縮放（不放大），JPEG 輸出時轉成不含透明度的 RGB
+    private static BufferedImage scale(BufferedImage source, int maxSize, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (ratio == 1.0 && source.getType() == type) {
+            return source;
+        }
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    // 有透明度輸出 PNG，其餘輸出 JPEG
+    private static byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        ingestExecutor.shutdown();
+    }
+}
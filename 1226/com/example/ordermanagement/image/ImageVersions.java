@@ -0,0 +1,96 @@
+package com.example.ordermanagement.image;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 圖片內容的版本（SHA-256 前 16 bytes 的十六進位）
+ *
+ * 版本同時作為 ETag 與網址上的 v 參數；以 "item:12"、"brand:3" 這類 key 記住最近算過的版本（LRU），
+ * 重新驗證（If-None-Match / If-Modified-Since）時不必再從資料庫讀出圖片。品牌與分類圖片更新時需呼叫 evict。
+ */
+@Component
+public class ImageVersions {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Known> versions;
+
+    public ImageVersions(@Value("${image.version-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Known> eldest) {
+                return size() > ImageVersions.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 取得圖片版本，沒有記錄時計算並記住
+     */
+    public String version(String key, byte[] image) {
+        String cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+        return remember(key, hash(image), -1);
+    }
+
+    /**
+     * 記住已知的版本（例如 ImageStore 的 hash）與最後修改時間（未知時為 -1），回傳該版本
+     */
+    public synchronized String remember(String key, String version, long lastModified) {
+        versions.put(key, new Known(version, lastModified));
+        return version;
+    }
+
+    /**
+     * 已記住的版本，沒有時回傳 null
+     */
+    public synchronized String cached(String key) {
+        Known known = versions.get(key);
+        return known != null ? known.version : null;
+    }
+
+    /**
+     * 已記住的最後修改時間（毫秒），沒有時回傳 -1
+     */
+    public synchronized long lastModified(String key) {
+        Known known = versions.get(key);
+        return known != null ? known.lastModified : -1;
+    }
+
+    /**
+     * 移除 key 與其各尺寸（key@尺寸）的版本
+     */
+    public synchronized void evict(String key) {
+        versions.remove(key);
+        String prefix = key + "@";
+        versions.keySet().removeIf(cachedKey -> cachedKey.startsWith(prefix));
+    }
+
+    public static String hash(byte[] image) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(image);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Known {
+        final String version;
+        final long lastModified;
+
+        Known(String version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ordermanagement.image;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ordermanagement.model.ItemPhotoRepositry;
+
+/**
+ * 商品圖片 ID → ImageStore hash（LRU）
+ *
+ * 商品圖片 ID 不會對應到不同內容，記住後 /itemPhoto/{id} 不必每次查資料庫。
+ * 列表頁以 prefetch 一次查出整頁圖片的 hash（單一 IN 查詢），之後瀏覽器同時送出的各張圖片請求都直接命中。
+ * 尚未搬到 ImageStore 的舊資料沒有 hash，照舊查資料庫讀取 BLOB。圖片刪除時需呼叫 evict。
+ */
+@Component
+public class ItemPhotoHashes {
+
+    private static final int MAX_BATCH = 500; // 單次 IN 查詢的 ID 數，SQL Server 參數上限為 2100
+
+    @Autowired
+    private ItemPhotoRepositry itemPhotoRepo;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Integer, String> hashes;
+
+    public ItemPhotoHashes(@Value("${image.item-hash-cache.max-entries:20000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > ItemPhotoHashes.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 圖片端點的 loader：已知 hash 時不查資料庫；不存在時回傳 null
+     */
+    public StoredImage load(int photoId) {
+        String hash = cached(photoId);
+        if (hash != null) {
+            return StoredImage.of(hash, () -> null);
+        }
+        return itemPhotoRepo.findById(photoId)
+                .map(photo -> {
+                    if (photo.getPhotoHash() != null) {
+                        remember(photoId, photo.getPhotoHash());
+                    }
+                    return StoredImage.of(photo.getPhotoHash(), photo::getPhotoFile);
+                })
+                .orElse(null);
+    }
+
+    /**
+     * 一次查出多張圖片的 hash 並記住，回傳存在的圖片 ID → hash（舊資料的 hash 為 null）
+     */
+    public Map<Integer, String> prefetch(Collection<Integer> photoIds) {
+        Map<Integer, String> found = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer photoId : photoIds) {
+            if (photoId == null || found.containsKey(photoId)) {
+                continue;
+            }
+            String hash = cached(photoId);
+            if (hash != null) {
+                found.put(photoId, hash);
+            } else {
+                missing.add(photoId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += MAX_BATCH) {
+            List<Integer> batch = missing.subList(from, Math.min(from + MAX_BATCH, missing.size()));
+            for (Object[] row : itemPhotoRepo.findHashesByIds(batch)) {
+                Integer photoId = (Integer) row[0];
+                String hash = (String) row[1];
+                if (hash != null) {
+                    remember(photoId, hash);
+                }
+                found.put(photoId, hash);
+            }
+        }
+        return found;
+    }
+
+    public synchronized void evict(int photoId) {
+        hashes.remove(photoId);
+    }
+
+    private synchronized String cached(int photoId) {
+        return hashes.get(photoId);
+    }
+
+    private synchronized void remember(int photoId, String hash) {
+        hashes.put(photoId, hash);
+    }
+}
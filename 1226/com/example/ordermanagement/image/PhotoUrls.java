@@ -0,0 +1,120 @@
+package com.example.ordermanagement.image;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.ordermanagement.model.Brand;
+import com.example.ordermanagement.model.Category;
+import com.example.ordermanagement.model.ItemPhotoRepositry;
+
+/**
+ * 圖片網址，JSON 與頁面都回傳網址，不再內嵌 base64
+ *
+ * 商品圖片更新時會刪除舊圖片、新增新圖片，圖片 ID 不會對應到不同內容，網址直接使用 ID；
+ * 品牌與分類圖片是原地更新，網址帶上內容版本 v，內容改變時網址也跟著改變。
+ * 也可在 Thymeleaf 中以 ${@photoUrls.brand(b)} 使用。
+ */
+@Component
+public class PhotoUrls {
+
+    public static final String PLACEHOLDER = "/images/default-placeholder.png";
+
+    @Autowired
+    private ImageVersions imageVersions;
+
+    @Autowired
+    private ItemPhotoRepositry itemPhotoRepo;
+
+    public static String itemKey(int photoId) {
+        return "item:" + photoId;
+    }
+
+    public static String brandKey(int brandId) {
+        return "brand:" + brandId;
+    }
+
+    public static String categoryKey(int categoryId) {
+        return "category:" + categoryId;
+    }
+
+    public static String shippingKey(long shippingInfoId) {
+        return "shipping:" + shippingInfoId;
+    }
+
+    /**
+     * 商品圖片網址，沒有圖片時回傳 null
+     */
+    public String item(Integer photoId) {
+        return photoId != null ? "/itemPhoto/" + photoId : null;
+    }
+
+    /**
+     * 商品縮圖網址（size 為長邊像素，見 ImageUploadPipeline），沒有圖片時回傳 null
+     */
+    public String item(Integer photoId, int size) {
+        return photoId != null ? "/itemPhoto/" + photoId + "?size=" + size : null;
+    }
+
+    /**
+     * 多個商品的第一張圖片縮圖網址（itemId → 網址），只查詢圖片 ID，不讀取圖片內容
+     */
+    public Map<Integer, String> primaryItemPhotos(Collection<Integer> itemIds, int size) {
+        Map<Integer, String> urls = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return urls;
+        }
+        for (Object[] row : itemPhotoRepo.findPrimaryPhotoIdsByItemIds(itemIds)) {
+            urls.put((Integer) row[0], item((Integer) row[1], size));
+        }
+        return urls;
+    }
+
+    /**
+     * 品牌圖片網址，沒有圖片時回傳 null
+     */
+    public String brand(Brand brand) {
+        String version = version(brandKey(brand.getBrandId()), brand.getBrandPhotoHash(), brand::getBrandPhoto);
+        return version != null ? "/api/brand/photo?id=" + brand.getBrandId() + "&v=" + version : null;
+    }
+
+    /**
+     * 分類圖片網址，沒有圖片時回傳 null
+     */
+    public String category(Category category) {
+        String version = version(categoryKey(category.getCategoryId()),
+                category.getCategoryPhotoHash(), category::getCategoryPhoto);
+        return version != null ? "/api/category/photo?id=" + category.getCategoryId() + "&v=" + version : null;
+    }
+
+    /**
+     * 物流單圖片網址；舊資料（legacy 為 true）不讀取 BLOB 計算版本，網址不帶 v，每次重新驗證
+     */
+    public String shipping(Long shippingInfoId, String hash, boolean legacy) {
+        String url = "/shipping/image/" + shippingInfoId + "/raw";
+        if (hash != null) {
+            return url + "?v=" + ImageStore.version(hash);
+        }
+        return legacy ? url : null;
+    }
+
+    // 已存進 ImageStore 的圖片版本直接取自 hash；舊資料已記住版本時也不必讀取 BLOB
+    private String version(String key, String hash, Supplier<byte[]> legacy) {
+        if (hash != null) {
+            return ImageStore.version(hash);
+        }
+        String cached = imageVersions.cached(key);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] bytes = legacy.get();
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return imageVersions.version(key, bytes);
+    }
+}
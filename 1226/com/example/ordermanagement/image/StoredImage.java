@@ -0,0 +1,61 @@
+package com.example.ordermanagement.image;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * 實體上的圖片：已存進 ImageStore 的只有 hash，尚未搬移的舊資料仍是 BLOB，
+ * 舊版存在 uploads/ 下的上傳則是檔案路徑
+ */
+public final class StoredImage {
+
+    private static final StoredImage EMPTY = new StoredImage(null, new byte[0], null);
+
+    private final String hash;
+    private final byte[] bytes;
+    private final Path file;
+
+    private StoredImage(String hash, byte[] bytes, Path file) {
+        this.hash = hash;
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    /**
+     * hash 優先，沒有 hash 時才讀取 BLOB（延遲載入的欄位不會被多讀一次），兩者皆無時為空圖片
+     */
+    public static StoredImage of(String hash, Supplier<byte[]> legacy) {
+        if (hash != null) {
+            return new StoredImage(hash, null, null);
+        }
+        byte[] bytes = legacy.get();
+        return bytes != null && bytes.length > 0 ? new StoredImage(null, bytes, null) : EMPTY;
+    }
+
+    /**
+     * 不在 ImageStore 中、內容不會改變的檔案（回應時串流，不讀進 heap）
+     */
+    public static StoredImage ofFile(Path file) {
+        return new StoredImage(null, null, file);
+    }
+
+    public boolean isEmpty() {
+        return hash == null && file == null && bytes.length == 0;
+    }
+
+    public boolean isStored() {
+        return hash != null;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.ordermanagement.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 可續傳的分段上傳
+ *
+ * start 宣告檔案大小後取得上傳 ID，之後每段以 append(id, offset, 內容) 直接寫進 {root}/{id}.part，
+ * 記憶體只用一個固定大小的緩衝區。連線中斷時已寫入的部分會保留，客戶端以 received 查詢位置後從那裡續傳；
+ * offset 與已收到的位置不符時不寫入，回傳目前位置。收齊後 complete 把檔案存進 ImageStore 並回傳 hash。
+ *
+ * 上傳狀態只存在記憶體，超過 session-ttl 沒有動作的上傳由背景每分鐘清掉（重新啟動前留下的暫存檔在啟動時清掉）。
+ *
+ * 每個上傳記錄建立者，API 只能操作自己的上傳；每位使用者同時進行中的上傳數與所有上傳宣告的總大小都有上限，
+ * 避免暫存目錄被塞滿。
+ */
+@Component
+public class UploadSessions {
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{32}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    private final Path root;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final int maxSessionsPerUser;
+    private final long maxStagedBytes;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "upload-session-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UploadSessions(@Value("${image.upload.root:uploads/sessions}") String root,
+            @Value("${image.upload.max-bytes:52428800}") long maxBytes,
+            @Value("${image.upload.session-ttl-minutes:60}") long ttlMinutes,
+            @Value("${image.upload.max-sessions-per-user:5}") int maxSessionsPerUser,
+            @Value("${image.upload.max-staged-bytes:1073741824}") long maxStagedBytes) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.maxStagedBytes = maxStagedBytes;
+        Files.createDirectories(this.root);
+        // 重新啟動後上傳狀態已不存在，留下的暫存檔無法再續傳
+        try (Stream<Path> leftovers = Files.list(this.root)) {
+            for (Path file : (Iterable<Path>) leftovers::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpired();
+            } catch (IOException | RuntimeException e) {
+                System.out.println("清除過期的分段上傳失敗：" + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 使用者 ownerId 開始一個上傳，totalBytes 為檔案大小，回傳上傳 ID
+     */
+    public synchronized String start(int ownerId, long totalBytes) throws IOException {
+        if (totalBytes <= 0 || totalBytes > maxBytes) {
+            throw new IllegalArgumentException("檔案大小需介於 1 與 " + maxBytes + " bytes");
+        }
+        purgeExpired();
+        int open = 0;
+        long staged = 0;
+        for (Session session : sessions.values()) {
+            if (session.hash == null) {
+                staged += session.total;
+                if (session.ownerId == ownerId) {
+                    open++;
+                }
+            }
+        }
+        if (open >= maxSessionsPerUser) {
+            throw new IllegalArgumentException("進行中的上傳最多 " + maxSessionsPerUser + " 個，請先完成或取消");
+        }
+        if (staged + totalBytes > maxStagedBytes) {
+            throw new IllegalArgumentException("上傳暫存空間已滿，請稍後再試");
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        Files.createFile(part(id));
+        sessions.put(id, new Session(ownerId, totalBytes));
+        return id;
+    }
+
+    /**
+     * 確認上傳都是 ownerId 建立的（不存在或屬於其他使用者時丟出 IllegalArgumentException）
+     */
+    public void checkOwner(Collection<String> ids, int ownerId) {
+        for (String id : ids) {
+            if (session(id).ownerId != ownerId) {
+                throw new IllegalArgumentException("上傳不存在或已過期: " + id);
+            }
+        }
+    }
+
+    /**
+     * 從 offset 開始寫入一段內容，回傳目前已收到的 bytes 數
+     */
+    public long append(String id, long offset, InputStream in) throws IOException {
+        Session session = session(id);
+        synchronized (session) {
+            if (session.hash != null) {
+                throw new IllegalArgumentException("上傳已完成: " + id);
+            }
+            if (offset != session.received) {
+                return session.received;
+            }
+            session.touched = System.currentTimeMillis();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (FileChannel out = FileChannel.open(part(id), StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(in);
+                out.position(session.received);
+                while (source.read(buffer) >= 0) {
+                    buffer.flip();
+                    if (session.received + buffer.remaining() > session.total) {
+                        throw new IllegalArgumentException("超過宣告的檔案大小 " + session.total + " bytes");
+                    }
+                    // 每寫入一塊就更新位置，連線中斷時已寫入的部分可以續傳
+                    while (buffer.hasRemaining()) {
+                        session.received += out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            return session.received;
+        }
+    }
+
+    /**
+     * 已收到的 bytes 數
+     */
+    public long received(String id) {
+        return session(id).received;
+    }
+
+    /**
+     * 宣告的檔案大小
+     */
+    public long total(String id) {
+        return session(id).total;
+    }
+
+    /**
+     * 收齊後存進 ImageStore，回傳 hash；已完成的上傳再次呼叫時回傳同一個 hash
+     */
+    public String complete(String id) throws IOException {
+        Session session = session(id);
+        synchronized (session) {
+            if (session.hash != null) {
+                return session.hash;
+            }
+            if (session.received != session.total) {
+                throw new IllegalArgumentException("上傳尚未完成: " + session.received + "/" + session.total);
+            }
+            try (InputStream in = Files.newInputStream(part(id))) {
+                session.hash = imageStore.save(in);
+            }
+            session.touched = System.currentTimeMillis();
+            Files.deleteIfExists(part(id));
+            return session.hash;
+        }
+    }
+
+    /**
+     * 取消上傳並刪除暫存檔
+     */
+    public void discard(String id) throws IOException {
+        if (sessions.remove(id) != null) {
+            Files.deleteIfExists(part(id));
+        }
+    }
+
+    private void purgeExpired() throws IOException {
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (entry.getValue().touched < expiredBefore) {
+                discard(entry.getKey());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    private Session session(String id) {
+        Session session = id != null ? sessions.get(id) : null;
+        if (session == null) {
+            throw new IllegalArgumentException("上傳不存在或已過期: " + id);
+        }
+        return session;
+    }
+
+    // 上傳 ID 只允許 32 個小寫十六進位字元，避免被組成 ../ 之類的路徑
+    private Path part(String id) {
+        if (!ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("上傳 ID 格式錯誤: " + id);
+        }
+        return root.resolve(id + ".part");
+    }
+
+    private static final class Session {
+        final int ownerId;
+        final long total;
+        volatile long received;
+        volatile long touched = System.currentTimeMillis();
+        volatile String hash;
+
+        Session(int ownerId, long total) {
+            this.ownerId = ownerId;
+            this.total = total;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -16,8 +18,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-
-
+/**
+ * 品牌
+ *
+ * 圖片存在 ImageStore，brandPhotoHash 為內容 hash；brandPhoto 只保留給尚未搬移的舊資料，
+ * 延遲載入（需 Hibernate bytecode enhancement），列表查詢不會讀出 BLOB。
+ * 新增欄位（未開啟 ddl-auto，需手動執行）：
+ *   ALTER TABLE Brand ADD brandPhotoHash CHAR(64) NULL;
+ */
 @NoArgsConstructor
 @Setter
 @Getter
@@ -31,7 +39,10 @@ public class Brand {
 	private String brandName;
 	private String brandInfo;
 	@Lob
+	@Basic(fetch = FetchType.LAZY)
 	private byte[] brandPhoto;
+	@Column(length = 64)
+	private String brandPhotoHash;
 
 	// 反向映射，指示該 Brand 對應多個 Item
 	@JsonIgnore
@@ -70,6 +81,14 @@ public class Brand {
 		this.brandPhoto = brandPhoto;
 	}
 
+	public String getBrandPhotoHash() {
+		return brandPhotoHash;
+	}
+
+	public void setBrandPhotoHash(String brandPhotoHash) {
+		this.brandPhotoHash = brandPhotoHash;
+	}
+
 	public List<Item> getItems() {
 		return items;
 	}
@@ -0,0 +1,11 @@
+package com.example.ordermanagement.model;
+
+/**
+ * 品牌的 id 與名稱（下拉選單等只需要名稱的地方使用，不讀取品牌圖片）
+ */
+public interface BrandName {
+
+    int getBrandId();
+
+    String getBrandName();
+}
@@ -1,7 +1,13 @@
 package com.example.ordermanagement.model;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface BrandRepository extends JpaRepository<Brand, Integer>{
 
-}
\ No newline at end of file
+    // 只查 id 與名稱，不讀取品牌圖片
+    @Query("select b.brandId as brandId, b.brandName as brandName from Brand b order by b.brandId")
+    List<BrandName> findAllNames();
+}
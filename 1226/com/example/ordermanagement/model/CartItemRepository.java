@@ -1,8 +1,17 @@
 package com.example.ordermanagement.model;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCart_CartId(Long cartId); // 根據購物車ID查找CartItem
+
+    // 顯示購物車所需的欄位：[選項ID, 商品ID, 賣家ID, 商品名稱, 選項名稱, 選項價格, 加入時價格, 數量]
+    @Query("select o.id, i.itemId, s.userId, i.itemName, o.optionName, o.optionPrice, ci.itemPrice, ci.itemQuantity"
+            + " from CartItem ci join ci.itemSize o join ci.item i left join ci.seller s"
+            + " where ci.cart.buyer.userId = :buyerId order by ci.cartItemId")
+    List<Object[]> findCartLinesByBuyerId(@Param("buyerId") int buyerId);
 }
@@ -4,6 +4,8 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -17,6 +19,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * 商品分類
+ *
+ * 圖片存在 ImageStore，categoryPhotoHash 為內容 hash；categoryPhoto 只保留給尚未搬移的舊資料，
+ * 延遲載入（需 Hibernate bytecode enhancement），列表查詢不會讀出 BLOB。
+ * 新增欄位（未開啟 ddl-auto，需手動執行）：
+ *   ALTER TABLE Category ADD categoryPhotoHash CHAR(64) NULL;
+ */
 @NoArgsConstructor
 @Setter
 @Getter
@@ -31,7 +41,10 @@ public class Category {
     private String categoryInfo;
     
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] categoryPhoto;
+    @Column(length = 64)
+    private String categoryPhotoHash;
     // 反向映射，指示該 Category 對應多個 Item
     @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
     private List<Item> items;
@@ -59,6 +72,12 @@ public class Category {
 	public void setCategoryPhoto(byte[] categoryPhoto) {
 		this.categoryPhoto = categoryPhoto;
 	}
+	public String getCategoryPhotoHash() {
+		return categoryPhotoHash;
+	}
+	public void setCategoryPhotoHash(String categoryPhotoHash) {
+		this.categoryPhotoHash = categoryPhotoHash;
+	}
 	public List<Item> getItems() {
 		return items;
 	}
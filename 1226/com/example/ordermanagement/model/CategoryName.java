@@ -0,0 +1,11 @@
+package com.example.ordermanagement.model;
+
+/**
+ * 商品分類的 id 與名稱（下拉選單等只需要名稱的地方使用，不讀取分類圖片）
+ */
+public interface CategoryName {
+
+    int getCategoryId();
+
+    String getCategoryName();
+}
@@ -1,7 +1,13 @@
 package com.example.ordermanagement.model;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface CategoryRepository extends JpaRepository<Category, Integer>{
 
-}
\ No newline at end of file
+    // 只查 id 與名稱，不讀取分類圖片
+    @Query("select c.categoryId as categoryId, c.categoryName as categoryName from Category c order by c.categoryId")
+    List<CategoryName> findAllNames();
+}
@@ -11,6 +11,7 @@ public class ContentEntity {
     private Long id;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(nullable = false)
     private String htmlContent;
 
@@ -0,0 +1,40 @@
+package com.example.ordermanagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
+
+/**
+ * 開啟搶購模式的商品選項（有資料即為開啟）
+ *
+ * appliedSeq 為已寫回 ItemOption 的最後一筆庫存紀錄序號，與庫存的變動在同一個交易中更新；
+ * 重新啟動時只補寫紀錄檔中序號更大的紀錄，同一筆不會重複扣除。
+ *
+ * 資料表（未開啟 ddl-auto，需手動建立）：
+ *   CREATE TABLE flash_sale_option (optionId INT PRIMARY KEY, appliedSeq BIGINT NOT NULL DEFAULT 0);
+ */
+@NoArgsConstructor
+@Entity
+@Table(name = "flash_sale_option")
+public class FlashSaleOption {
+
+    @Id
+    private Integer optionId;
+
+    @Column(nullable = false)
+    private long appliedSeq;
+
+    public FlashSaleOption(Integer optionId) {
+        this.optionId = optionId;
+    }
+
+    public Integer getOptionId() {
+        return optionId;
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.ordermanagement.model;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface FlashSaleOptionRepository extends JpaRepository<FlashSaleOption, Integer> {
+
+    // 與寫回的庫存變動在同一個交易中更新
+    @Modifying
+    @Query("update FlashSaleOption f set f.appliedSeq = :seq where f.optionId = :optionId and f.appliedSeq < :seq")
+    int updateAppliedSeq(@Param("optionId") int optionId, @Param("seq") long seq);
+}
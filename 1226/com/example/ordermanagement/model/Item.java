@@ -18,6 +18,7 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
@@ -189,6 +190,7 @@ public class Item {
 
     // 商品圖片
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "item")
+    @OrderBy("sortOrder ASC, id ASC") // 第一張為主圖
     @JsonIgnore
     private List<ItemPhoto> itemPhoto = new ArrayList<>();
 
@@ -4,6 +4,14 @@ import java.math.BigDecimal;
 import jakarta.persistence.*;
 import lombok.*;
 
+/**
+ * 商品選項（尺寸）與庫存
+ *
+ * quantity 為實際庫存，reservedQuantity 為購物車保留中（尚未結帳）的數量，可購買數量為兩者相減。
+ * reservedQuantity 只由 InventoryService 以 SQL 更新，編輯商品時不會被表單覆蓋。
+ * 新增欄位（未開啟 ddl-auto，需手動執行）：
+ *   ALTER TABLE ItemOption ADD reservedQuantity INT NOT NULL DEFAULT 0;
+ */
 @NoArgsConstructor
 @Setter
 @Getter
@@ -36,6 +44,15 @@ public class ItemOption {
 		this.quantity = quantity;
 	}
 
+	public int getReservedQuantity() {
+		return reservedQuantity;
+	}
+
+	/** 可購買數量（庫存扣除購物車保留中的數量） */
+	public int getAvailableQuantity() {
+		return quantity - reservedQuantity;
+	}
+
 	public BigDecimal getOptionPrice() {
 		return optionPrice;
 	}
@@ -61,6 +78,9 @@ public class ItemOption {
 
     @Column(nullable = false)
     private int quantity; // 庫存數量
+
+    @Column(insertable = false, updatable = false)
+    private int reservedQuantity; // 購物車保留中的數量
     
     @Column(precision = 10, scale = 2)
     private BigDecimal optionPrice; // 選項額外價格
@@ -1,9 +1,66 @@
 package com.example.ordermanagement.model;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ItemOptionRepositry extends JpaRepository<ItemOption, Integer> {
 	List<ItemOption> findByItem(Item item); //Mantle
+
+	// 商品摘要用：每個商品的 [itemId, 最低價, 最高價, 可購買總數]
+	@Query("select o.item.itemId, min(o.optionPrice), max(o.optionPrice), sum(o.quantity - o.reservedQuantity) from ItemOption o group by o.item.itemId")
+	List<Object[]> summarizeAll();
+
+	@Query("select o.item.itemId, min(o.optionPrice), max(o.optionPrice), sum(o.quantity - o.reservedQuantity) from ItemOption o where o.item.itemId = :itemId group by o.item.itemId")
+	List<Object[]> summarizeByItemId(@Param("itemId") int itemId);
+
+	@Query("select coalesce(sum(o.quantity - o.reservedQuantity), 0) from ItemOption o where o.item.itemId = :itemId")
+	long sumQuantityByItemId(@Param("itemId") int itemId);
+
+	// 庫存保留：每次變動都是單一條件式 UPDATE，由資料庫保證可購買數量（quantity - reservedQuantity）不會小於 0
+	// reservedQuantity 在實體上不可寫入，以原生 SQL 更新
+	@Modifying
+	@Query(value = "UPDATE ItemOption SET reservedQuantity = reservedQuantity + :quantity"
+			+ " WHERE id = :id AND quantity - reservedQuantity >= :quantity", nativeQuery = true)
+	int reserveQuantity(@Param("id") int id, @Param("quantity") int quantity);
+
+	@Modifying
+	@Query(value = "UPDATE ItemOption SET reservedQuantity = reservedQuantity - :quantity"
+			+ " WHERE id = :id AND reservedQuantity >= :quantity", nativeQuery = true)
+	int releaseQuantity(@Param("id") int id, @Param("quantity") int quantity);
+
+	// 結帳：保留轉為實際扣除庫存
+	@Modifying
+	@Query(value = "UPDATE ItemOption SET quantity = quantity - :quantity, reservedQuantity = reservedQuantity - :quantity"
+			+ " WHERE id = :id AND reservedQuantity >= :quantity", nativeQuery = true)
+	int commitQuantity(@Param("id") int id, @Param("quantity") int quantity);
+
+	// 搶購模式的批次寫回：是否足夠已由記憶體中的庫存計數決定，不再加條件
+	@Modifying
+	@Query(value = "UPDATE ItemOption SET quantity = quantity - :committed, reservedQuantity = reservedQuantity + :reserved - :committed"
+			+ " WHERE id = :id", nativeQuery = true)
+	int applyFlashSale(@Param("id") int id, @Param("reserved") long reserved, @Param("committed") long committed);
+
+	@Query("select o.quantity - o.reservedQuantity from ItemOption o where o.id = :id")
+	Integer findAvailableById(@Param("id") int id);
+
+	// 加入購物車用：[選項ID, 商品ID, 賣家ID, 商品名稱, 選項名稱, 選項價格]
+	@Query("select o.id, i.itemId, s.userId, i.itemName, o.optionName, o.optionPrice"
+			+ " from ItemOption o join o.item i left join i.userInfo s where o.id in :ids")
+	List<Object[]> findCartLinesByIds(@Param("ids") Collection<Integer> ids);
+
+	// [選項ID, 可購買數量, 商品ID]
+	@Query("select o.id, o.quantity - o.reservedQuantity, o.item.itemId from ItemOption o where o.id in :ids")
+	List<Object[]> findAvailableByIds(@Param("ids") Collection<Integer> ids);
+
+	// 選項所屬商品的賣家
+	@Query("select o.item.userInfo.userId from ItemOption o where o.id = :id")
+	Integer findSellerIdById(@Param("id") int id);
+
+	@Query("select o.item.itemId from ItemOption o where o.id = :id")
+	Integer findItemIdById(@Param("id") int id);
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.example.ordermanagement.model;
 
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -12,6 +15,16 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * 商品圖片
+ *
+ * 圖片存在 ImageStore，這裡只存內容 hash；photoFile 只保留給尚未搬移的舊資料（ImageMigration 搬移後清空）。
+ * 新增欄位（未開啟 ddl-auto，需手動執行）：
+ *   ALTER TABLE item_photo ADD photoHash CHAR(64) NULL;
+ *   ALTER TABLE item_photo ADD sortOrder INT NOT NULL DEFAULT 0;
+ *
+ * sortOrder 為商品內的顯示順序，最小的（相同時 ID 最小的）為主圖。
+ */
 @NoArgsConstructor
 @Setter
 @Getter
@@ -34,6 +47,22 @@ public class ItemPhoto {
 		this.photoFile = photoFile;
 	}
 
+	public String getPhotoHash() {
+		return photoHash;
+	}
+
+	public void setPhotoHash(String photoHash) {
+		this.photoHash = photoHash;
+	}
+
+	public int getSortOrder() {
+		return sortOrder;
+	}
+
+	public void setSortOrder(int sortOrder) {
+		this.sortOrder = sortOrder;
+	}
+
 	public Item getItem() {
 		return item;
 	}
@@ -47,7 +76,14 @@ public class ItemPhoto {
 	private Integer id;
 	
 	@Lob
+	@Basic(fetch = FetchType.LAZY)
 	private byte[] photoFile;
+
+	@Column(length = 64)
+	private String photoHash;
+
+	@Column(nullable = false)
+	private int sortOrder;
 	
 	@ManyToOne
 	@JoinColumn(name="fk_item_id")
@@ -1,15 +1,25 @@
 package com.example.ordermanagement.model;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.transaction.Transactional;
 
 public interface ItemPhotoRepositry extends JpaRepository<ItemPhoto, Integer> {
+
+	// 主圖：同一商品中沒有其他圖片排在前面（sortOrder 較小，或相同但 ID 較小）
+	String PRIMARY = "not exists (select q.id from ItemPhoto q where q.item = p.item"
+			+ " and (q.sortOrder < p.sortOrder or (q.sortOrder = p.sortOrder and q.id < p.id)))";
 	
+	// 批次取得圖片的 hash [photoId, photoHash]，不讀取圖片內容
+	@Query("select p.id, p.photoHash from ItemPhoto p where p.id in :ids")
+	List<Object[]> findHashesByIds(@Param("ids") Collection<Integer> ids);
+
 	@Query("select id from ItemPhoto where item.itemId = :id")
 	List<Integer> findItemPhotoIdByItemId(@Param("id") Integer id);
 	
@@ -19,5 +29,29 @@ public interface ItemPhotoRepositry extends JpaRepository<ItemPhoto, Integer> {
 	
     
     List<ItemPhoto> findByItem(Item item);
+
+    // 依顯示順序，圖片 BLOB 延遲載入
+    List<ItemPhoto> findByItem_ItemIdOrderBySortOrderAscIdAsc(int itemId);
+
+    @Modifying
+    @Transactional
+    @Query("update ItemPhoto p set p.sortOrder = :sortOrder where p.id = :id")
+    int updateSortOrder(@Param("id") int id, @Param("sortOrder") int sortOrder);
+
+    // 舊資料的內容已存在 ImageStore 時，改記 hash 並清空 BLOB（內容相同，ETag 不變）
+    @Modifying
+    @Transactional
+    @Query("update ItemPhoto p set p.photoHash = :hash, p.photoFile = null where p.id = :id")
+    int moveToStore(@Param("id") int id, @Param("hash") String hash);
+
+    // 商品摘要用：每個商品的主圖 [itemId, photoId]，不讀取圖片內容
+    @Query("select p.item.itemId, p.id from ItemPhoto p where " + PRIMARY)
+    List<Object[]> findPrimaryPhotoIds();
+
+    @Query("select p.id from ItemPhoto p where p.item.itemId = :itemId and " + PRIMARY)
+    Integer findPrimaryPhotoIdByItemId(@Param("itemId") int itemId);
+
+    @Query("select p.item.itemId, p.id from ItemPhoto p where p.item.itemId in :itemIds and " + PRIMARY)
+    List<Object[]> findPrimaryPhotoIdsByItemIds(@Param("itemIds") Collection<Integer> itemIds);
 	
 }
\ No newline at end of file
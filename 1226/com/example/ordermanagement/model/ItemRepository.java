@@ -3,9 +3,12 @@ package com.example.ordermanagement.model;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Integer>, JpaSpecificationExecutor<Item> {
@@ -21,6 +24,19 @@ public interface ItemRepository extends JpaRepository<Item, Integer>, JpaSpecifi
     List<Item> findAll(Sort sort);
     
     List<Item> findByBrand_BrandNameContainingOrderByItemIdDesc(String brandName);
-    
+
+    // 建立搜尋索引用，一次帶出品牌與分類（只含未下架的商品）
+    @Query("select i from Item i left join fetch i.brand left join fetch i.category where i.itemDeleteStatus = false")
+    List<Item> findAllForSearchIndex();
+
+    @Query("select i from Item i left join fetch i.brand left join fetch i.category where i.itemId = :id and i.itemDeleteStatus = false")
+    Optional<Item> findByIdForSearchIndex(@Param("id") int id);
+
+    @Query("select i from Item i left join fetch i.brand b left join fetch i.category where b.brandId = :brandId and i.itemDeleteStatus = false")
+    List<Item> findByBrandIdForSearchIndex(@Param("brandId") int brandId);
+
+    @Query("select i from Item i left join fetch i.brand left join fetch i.category c where c.categoryId = :categoryId and i.itemDeleteStatus = false")
+    List<Item> findByCategoryIdForSearchIndex(@Param("categoryId") int categoryId);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.example.ordermanagement.model;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
+
+/**
+ * 商品列表用的摘要資料（讀取模型）
+ *
+ * 由 ItemSummaryService 在商品新增 / 修改 / 刪除與選項庫存變動時同步維護，
+ * 列表頁只查這張表，不必載入 Item、ItemOption 與圖片 BLOB。
+ *
+ * 資料表（未開啟 ddl-auto，需手動建立）：
+ *   CREATE TABLE item_summary (
+ *     itemId INT PRIMARY KEY, itemName NVARCHAR(255), itemPrice DECIMAL(10,2), itemDate DATE,
+ *     brandId INT, brandName NVARCHAR(255), categoryId INT, categoryName NVARCHAR(255),
+ *     minOptionPrice DECIMAL(10,2), maxOptionPrice DECIMAL(10,2), primaryPhotoId INT,
+ *     inStock BIT NOT NULL DEFAULT 0);
+ *   CREATE INDEX ix_item_summary_price ON item_summary (itemPrice, itemId);
+ *   CREATE INDEX ix_item_summary_date ON item_summary (itemDate);
+ *   CREATE INDEX ix_item_summary_brand ON item_summary (brandName);
+ *   CREATE INDEX ix_item_summary_category ON item_summary (categoryId);
+ */
+@NoArgsConstructor
+@Entity
+@Table(name = "item_summary", indexes = {
+        @Index(name = "ix_item_summary_price", columnList = "itemPrice, itemId"),
+        @Index(name = "ix_item_summary_date", columnList = "itemDate"),
+        @Index(name = "ix_item_summary_brand", columnList = "brandName"),
+        @Index(name = "ix_item_summary_category", columnList = "categoryId") })
+public class ItemSummary {
+
+    @Id
+    private int itemId; // 與 Item 相同，不自動產生
+
+    private String itemName;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal itemPrice; // 商品售價（最低選項價格）
+
+    private Date itemDate; // 上架日期
+
+    private Integer brandId;
+    private String brandName;
+    private Integer categoryId;
+    private String categoryName;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal minOptionPrice;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal maxOptionPrice;
+
+    private Integer primaryPhotoId; // 第一張商品圖片，沒有圖片時為 null
+
+    @Column(nullable = false)
+    private boolean inStock; // 任一選項尚有庫存
+
+    public ItemSummary(int itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(int itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public void setItemPrice(BigDecimal itemPrice) {
+        this.itemPrice = itemPrice;
+    }
+
+    public Date getItemDate() {
+        return itemDate;
+    }
+
+    public void setItemDate(Date itemDate) {
+        this.itemDate = itemDate;
+    }
+
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Integer brandId) {
+        this.brandId = brandId;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public void setBrandName(String brandName) {
+        this.brandName = brandName;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getMinOptionPrice() {
+        return minOptionPrice;
+    }
+
+    public void setMinOptionPrice(BigDecimal minOptionPrice) {
+        this.minOptionPrice = minOptionPrice;
+    }
+
+    public BigDecimal getMaxOptionPrice() {
+        return maxOptionPrice;
+    }
+
+    public void setMaxOptionPrice(BigDecimal maxOptionPrice) {
+        this.maxOptionPrice = maxOptionPrice;
+    }
+
+    public Integer getPrimaryPhotoId() {
+        return primaryPhotoId;
+    }
+
+    public void setPrimaryPhotoId(Integer primaryPhotoId) {
+        this.primaryPhotoId = primaryPhotoId;
+    }
+
+    public boolean isInStock() {
+        return inStock;
+    }
+
+    public void setInStock(boolean inStock) {
+        this.inStock = inStock;
+    }
+}
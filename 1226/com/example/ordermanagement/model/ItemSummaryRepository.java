@@ -0,0 +1,37 @@
+package com.example.ordermanagement.model;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ItemSummaryRepository extends JpaRepository<ItemSummary, Integer>, JpaSpecificationExecutor<ItemSummary> {
+
+    List<ItemSummary> findTop15ByOrderByItemIdDesc();
+
+    // 游標分頁用：回傳 Slice 只多取一筆判斷是否有下一頁，不執行 count
+    Slice<ItemSummary> findByOrderByItemIdDesc(Pageable pageable);
+
+    Slice<ItemSummary> findByItemIdLessThanOrderByItemIdDesc(int itemId, Pageable pageable);
+
+    List<ItemSummary> findByItemNameContainingOrBrandNameContainingOrCategoryNameContainingOrderByItemIdDesc(
+            String itemName, String brandName, String categoryName);
+
+    List<ItemSummary> findByBrandNameContainingOrderByItemIdDesc(String brandName);
+
+    // 品牌、分類改名時一併更新摘要
+    @Modifying
+    @Query("update ItemSummary s set s.brandName = :brandName where s.brandId = :brandId")
+    int updateBrandName(@Param("brandId") int brandId, @Param("brandName") String brandName);
+
+    @Modifying
+    @Query("update ItemSummary s set s.categoryName = :categoryName where s.categoryId = :categoryId")
+    int updateCategoryName(@Param("categoryId") int categoryId, @Param("categoryName") String categoryName);
+}
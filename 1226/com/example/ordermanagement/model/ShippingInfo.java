@@ -8,6 +8,13 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+/**
+ * 物流資訊
+ *
+ * 物流單圖片存在 ImageStore，shipping_info_image_hash 為內容 hash；shipping_info_image 只保留給尚未搬移的舊資料。
+ * 新增欄位（未開啟 ddl-auto，需手動執行）：
+ *   ALTER TABLE shipping_info ADD shipping_info_image_hash CHAR(64) NULL;
+ */
 @Entity
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "shipping_info")
@@ -46,9 +53,14 @@ public class ShippingInfo {
     private String shippingInfoTrackingNumber;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @JsonIgnore // 圖片以 /shipping/image/{id}/raw 取得，JSON 不內嵌 BLOB
     @Column(name = "shipping_info_image")
     private byte[] shippingInfoImage;
 
+    @Column(name = "shipping_info_image_hash", length = 64)
+    private String shippingInfoImageHash;
+
     public void setOrder(Order order) {
         this.order = order;
         if (order != null && order.getShippingInfo() != this) {
@@ -113,6 +125,14 @@ public class ShippingInfo {
 		this.shippingInfoImage = shippingInfoImage;
 	}
 
+	public String getShippingInfoImageHash() {
+		return shippingInfoImageHash;
+	}
+
+	public void setShippingInfoImageHash(String shippingInfoImageHash) {
+		this.shippingInfoImageHash = shippingInfoImageHash;
+	}
+
 	public Order getOrder() {
 		return order;
 	}
@@ -2,10 +2,12 @@ package com.example.ordermanagement.model;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ShippingInfoRepository extends JpaRepository<ShippingInfo, Long>,JpaSpecificationExecutor<ShippingInfo> {
@@ -33,4 +35,8 @@ public interface ShippingInfoRepository extends JpaRepository<ShippingInfo, Long
 
     // 根據物流追蹤號查詢物流信息
     List<ShippingInfo> findByShippingInfoTrackingNumber(String trackingNumber);
+
+    // 圖片仍在 BLOB（尚未搬到 ImageStore）的物流資訊 ID，不讀取圖片內容
+    @Query("select s.shippingInfoId from ShippingInfo s where s.shippingInfoImageHash is null and s.shippingInfoImage is not null")
+    Set<Long> findIdsWithLegacyImage();
 }
@@ -0,0 +1,92 @@
+package com.example.ordermanagement.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.NoArgsConstructor;
+
+/**
+ * 購物車的庫存保留（每位買家每個商品選項一筆，數量與購物車中的數量相同）
+ *
+ * 加入購物車時保留，到期前再次變動購物車會延長；結帳時轉為實際扣除庫存，逾時未結帳由 ReservationSweeper 釋放。
+ * 保留中的數量同時累計在 ItemOption.reservedQuantity。
+ *
+ * 資料表（未開啟 ddl-auto，需手動建立）：
+ *   CREATE TABLE stock_reservation (
+ *     id BIGINT IDENTITY PRIMARY KEY, buyerId INT NOT NULL, optionId INT NOT NULL,
+ *     quantity INT NOT NULL, expiresAt DATETIME2 NOT NULL,
+ *     CONSTRAINT uq_stock_reservation UNIQUE (buyerId, optionId));
+ *   CREATE INDEX ix_stock_reservation_expires ON stock_reservation (expiresAt);
+ * 上線前已在購物車中的商品是直接扣除庫存的，需轉成保留：
+ *   INSERT INTO stock_reservation (buyerId, optionId, quantity, expiresAt)
+ *     SELECT c.buyer_id, i.item_size, SUM(i.item_quantity), DATEADD(MINUTE, 15, SYSDATETIME())
+ *     FROM cart_items i JOIN cart c ON c.cartId = i.cart_id GROUP BY c.buyer_id, i.item_size;
+ *   UPDATE o SET quantity = o.quantity + r.quantity, reservedQuantity = o.reservedQuantity + r.quantity
+ *     FROM ItemOption o JOIN stock_reservation r ON r.optionId = o.id;
+ */
+@NoArgsConstructor
+@Entity
+@Table(name = "stock_reservation",
+        uniqueConstraints = @UniqueConstraint(name = "uq_stock_reservation", columnNames = { "buyerId", "optionId" }),
+        indexes = @Index(name = "ix_stock_reservation_expires", columnList = "expiresAt"))
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private int buyerId;
+
+    @Column(nullable = false)
+    private int optionId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getBuyerId() {
+        return buyerId;
+    }
+
+    public void setBuyerId(int buyerId) {
+        this.buyerId = buyerId;
+    }
+
+    public int getOptionId() {
+        return optionId;
+    }
+
+    public void setOptionId(int optionId) {
+        this.optionId = optionId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ordermanagement.model;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // 鎖定買家在該選項的保留（只鎖這一列，不影響其他買家）
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StockReservation> findByBuyerIdAndOptionId(int buyerId, int optionId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockReservation> findByBuyerIdAndOptionIdIn(int buyerId, Collection<Integer> optionIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.id in :ids")
+    List<StockReservation> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 已到期的保留（依到期時間），給釋放工作補上不在記憶體佇列中的保留（重新啟動前或其他節點建立的）
+    @Query("select r.id from StockReservation r where r.expiresAt <= :now order by r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,103 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.ordermanagement.model.Item;
+
+/**
+ * 索引中的單一商品快照（不可變），只保留搜尋與篩選需要的欄位
+ */
+public class CatalogDocument {
+
+    private final int itemId;
+    private final String itemName;
+    private final Integer brandId;
+    private final String brandName;
+    private final Integer categoryId;
+    private final String categoryName;
+    private final String itemInfo;
+    private final BigDecimal itemPrice;
+    private final LocalDate itemDate;
+    private final int itemSell;   // 銷售數量，作為熱門程度
+
+    public CatalogDocument(int itemId, String itemName, Integer brandId, String brandName,
+            Integer categoryId, String categoryName, String itemInfo,
+            BigDecimal itemPrice, LocalDate itemDate, int itemSell) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.brandId = brandId;
+        this.brandName = brandName;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.itemInfo = itemInfo;
+        this.itemPrice = itemPrice;
+        this.itemDate = itemDate;
+        this.itemSell = itemSell;
+    }
+
+    // 由已載入 brand / category 的商品建立快照
+    public static CatalogDocument of(Item item) {
+        return new CatalogDocument(
+                item.getItemId(),
+                item.getItemName(),
+                item.getBrand() != null ? item.getBrand().getBrandId() : null,
+                item.getBrand() != null ? item.getBrand().getBrandName() : null,
+                item.getCategory() != null ? item.getCategory().getCategoryId() : null,
+                item.getCategory() != null ? item.getCategory().getCategoryName() : null,
+                item.getItemInfo(),
+                item.getItemPrice(),
+                item.getItemDate() != null ? item.getItemDate().toLocalDate() : null,
+                item.getItemSell());
+    }
+
+    // 取得指定欄位的原始文字
+    public String getField(CatalogField field) {
+        return switch (field) {
+            case NAME -> itemName;
+            case BRAND -> brandName;
+            case CATEGORY -> categoryName;
+            case INFO -> itemInfo;
+        };
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getItemInfo() {
+        return itemInfo;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public LocalDate getItemDate() {
+        return itemDate;
+    }
+
+    public int getItemSell() {
+        return itemSell;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ordermanagement.search;
+
+import java.util.List;
+
+/**
+ * 搜尋結果的各項篩選統計
+ *
+ * 每一組統計都不套用自己那一類的條件（例如品牌統計不受已勾選品牌影響），
+ * 讓使用者在側邊欄切換條件時仍看得到其他選項的數量。
+ */
+public class CatalogFacets {
+
+    private final List<FacetCount> brands;
+    private final List<FacetCount> categories;
+    private final List<PriceBucket> prices;
+    private final List<FacetCount> months;
+
+    public CatalogFacets(List<FacetCount> brands, List<FacetCount> categories,
+            List<PriceBucket> prices, List<FacetCount> months) {
+        this.brands = brands;
+        this.categories = categories;
+        this.prices = prices;
+        this.months = months;
+    }
+
+    public List<FacetCount> getBrands() {
+        return brands;
+    }
+
+    public List<FacetCount> getCategories() {
+        return categories;
+    }
+
+    public List<PriceBucket> getPrices() {
+        return prices;
+    }
+
+    public List<FacetCount> getMonths() {
+        return months;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ordermanagement.search;
+
+/**
+ * 商品索引中可供關鍵字搜尋的欄位，boost 為相關性排序時的欄位權重
+ */
+public enum CatalogField {
+    NAME(3.0),      // Item.itemName
+    BRAND(2.0),     // Brand.brandName
+    CATEGORY(1.5),  // Category.categoryName
+    INFO(0.5);      // Item.itemInfo
+
+    private final double boost;
+
+    CatalogField(double boost) {
+        this.boost = boost;
+    }
+
+    public double getBoost() {
+        return boost;
+    }
+}
@@ -0,0 +1,776 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品目錄的記憶體倒排索引
+ *
+ * 每個欄位各自維護「token → 商品序號」的 posting list（分詞規則見 CjkTokenizer），
+ * 查詢時每個 token 可落在任一指定欄位，所有 token 都命中的商品才算符合。
+ * 英數單字以前綴比對，中文則以 n-gram 交集後再確認片段在原文中相連。
+ * 英數單字完全沒有命中時，以 FuzzyTermDictionary 找出拼字最接近的單字代替（「您是不是要找」）。
+ *
+ * 另外以 BitSet 維護品牌、分類、價格區間與上架月份的 posting list，
+ * 結構化篩選與側邊欄的統計數量都直接由 BitSet 交集計算。
+ * 價格（分）與上架日期（epoch day）另存為依序號排列的基本型別陣列，
+ * 範圍條件以不分支的整欄掃描產生 BitSet，不必逐筆比較 BigDecimal / LocalDate。
+ *
+ * RELEVANCE 排序以 BM25 計算各欄位分數（依 CatalogField 的權重加總），
+ * 再乘上銷售數量與上架日期的加權；只對符合條件的商品計分，不經過資料庫。
+ */
+public class CatalogIndex {
+
+    // 刪除筆數超過此門檻且多於存活筆數時，重新整理序號
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    // 價格統計的區間下限（最後一段沒有上限）
+    private static final BigDecimal[] PRICE_EDGES = {
+            BigDecimal.ZERO, BigDecimal.valueOf(100), BigDecimal.valueOf(300), BigDecimal.valueOf(500),
+            BigDecimal.valueOf(1000), BigDecimal.valueOf(2000) };
+
+    // 上架月份統計最多回傳的月份數
+    private static final int MAX_MONTH_FACETS = 12;
+
+    // BM25 參數
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 上架日期加權的半衰期（天）
+    private static final double RECENCY_HALF_LIFE_DAYS = 30;
+
+    private static final CatalogField[] FIELDS = CatalogField.values();
+
+    // 欄位沒有值時的標記，不會落在任何查詢範圍內
+    private static final long NO_PRICE = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Entry> entries = new ArrayList<>();           // 序號 → 商品
+    private final Map<Integer, Integer> ordinals = new HashMap<>();   // itemId → 序號
+    private final BitSet live = new BitSet();
+    private boolean ordinalsSorted = true;                           // 序號順序是否與 itemId 順序一致
+    private final Map<CatalogField, NavigableMap<String, IntList>> postings = new EnumMap<>(CatalogField.class);
+    private final long[] fieldLengthSum = new long[CatalogField.values().length];   // 存活商品各欄位的 token 總數
+    private final FuzzyTermDictionary dictionary = new FuzzyTermDictionary();       // 英數單字的拼字容錯
+
+    // 篩選用的 BitSet posting list（已刪除的序號靠 live 排除，整理序號時一併清空）
+    private final Map<String, BitSet> brandBits = new HashMap<>();          // 品牌名稱 → 商品
+    private final Map<Integer, BitSet> categoryBits = new HashMap<>();      // 分類 ID → 商品
+    private final Map<Integer, String> categoryNames = new HashMap<>();
+    private final BitSet[] priceBits = new BitSet[PRICE_EDGES.length];
+    private final NavigableMap<YearMonth, BitSet> monthBits = new TreeMap<>();
+
+    // 範圍篩選用的欄位陣列，索引為序號
+    private long[] priceCents = new long[1024];
+    private int[] days = new int[1024];
+
+    public CatalogIndex() {
+        for (CatalogField field : CatalogField.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+        for (int i = 0; i < priceBits.length; i++) {
+            priceBits[i] = new BitSet();
+        }
+    }
+
+    /**
+     * 新增或更新一筆商品
+     */
+    public void put(CatalogDocument doc) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(doc.getItemId());
+            append(doc);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 從索引移除商品
+     */
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(itemId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以新的商品集合整個取代索引內容（啟動時重建用）
+     */
+    public void replaceAll(Collection<CatalogDocument> docs) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            docs.stream()
+                    .sorted(Comparator.comparingInt(CatalogDocument::getItemId))
+                    .forEach(this::append);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 目前索引中的商品，不存在時回傳 null
+     */
+    public CatalogDocument get(int itemId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(itemId);
+            return ordinal != null ? entries.get(ordinal).doc : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 依條件搜尋，回傳符合的商品（依查詢指定的排序，有游標時從游標之後開始）
+     */
+    public List<CatalogDocument> search(CatalogQuery query) {
+        lock.readLock().lock();
+        try {
+            return hits(select(query), query).docs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜尋並同時計算品牌、分類、價格區間與上架月份的統計數量
+     */
+    public CatalogSearchResult searchWithFacets(CatalogQuery query) {
+        return search(query, true);
+    }
+
+    /**
+     * 搜尋並回傳可產生下一頁游標的結果，withFacets 為 false 時不計算統計數量
+     */
+    public CatalogSearchResult search(CatalogQuery query, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            Selection selection = select(query);
+            Hits hits = hits(selection, query);
+            CatalogFacets facets = null;
+            if (withFacets) {
+                facets = new CatalogFacets(
+                        brandFacets(selection.without(selection.brand)),
+                        categoryFacets(selection.without(selection.category)),
+                        priceFacets(selection.without(selection.price)),
+                        monthFacets(selection.without(selection.date)));
+            }
+            return new CatalogSearchResult(hits.docs, hits.scores, query.getSort(), hits.total, facets,
+                    selection.corrected ? selection.matchedKeyword : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 將每個條件各自轉成 BitSet，null 表示該條件未指定
+    private Selection select(CatalogQuery query) {
+        Selection selection = new Selection();
+        selection.keyword = query.hasKeyword()
+                ? matchKeyword(CjkTokenizer.normalize(query.getKeyword().trim()), query.getFields(), selection)
+                : (BitSet) live.clone();
+
+        if (query.getCategoryId() != null) {
+            selection.category = categoryBits.getOrDefault(query.getCategoryId(), new BitSet());
+        }
+        if (query.getBrandNames() != null && !query.getBrandNames().isEmpty()) {
+            selection.brand = new BitSet();
+            for (String brandName : query.getBrandNames()) {
+                BitSet bits = brandBits.get(brandName);
+                if (bits != null) {
+                    selection.brand.or(bits);
+                }
+            }
+        }
+
+        // 價格與日期是範圍條件，掃描欄位陣列
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            long min = query.getMinPrice() != null ? Math.max(0, toCents(query.getMinPrice(), RoundingMode.CEILING)) : 0;
+            long max = query.getMaxPrice() != null ? toCents(query.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE / 2;
+            selection.price = scan(priceCents, min, max);
+        }
+        if (query.getStartDate() != null || query.getEndDate() != null) {
+            long min = query.getStartDate() != null ? query.getStartDate().toEpochDay() : Integer.MIN_VALUE + 1;
+            long max = query.getEndDate() != null ? query.getEndDate().toEpochDay() : Integer.MAX_VALUE;
+            selection.date = scan(days, min, max);
+        }
+        return selection;
+    }
+
+    // 序號與 itemId 同順序時，由後往前走訪即為由新到舊，不必再排序
+    private List<CatalogDocument> documents(BitSet bits, CatalogSort sort) {
+        List<CatalogDocument> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.previousSetBit(entries.size() - 1); i >= 0; i = bits.previousSetBit(i - 1)) {
+            result.add(entries.get(i).doc);
+        }
+        if (sort != CatalogSort.NEWEST || !ordinalsSorted) {
+            result.sort(PageCursor.comparator(sort));
+        }
+        return result;
+    }
+
+    // 依排序排列後，取游標之後最多 limit 筆
+    private Hits hits(Selection selection, CatalogQuery query) {
+        BitSet bits = selection.result();
+        if (query.getSort() == CatalogSort.RELEVANCE) {
+            return rank(bits, query, selection.matchedKeyword);
+        }
+        List<CatalogDocument> docs = documents(bits, query.getSort());
+        int from = seek(docs, query.getAfter());
+        int to = (int) Math.min((long) from + query.getLimit(), docs.size());
+        return new Hits(docs.subList(from, to), null, docs.size());
+    }
+
+    // 依相關性分數由高到低排序，同分時由新到舊；只排序需要回傳的前 limit 筆
+    private Hits rank(BitSet bits, CatalogQuery query, String keyword) {
+        int n = bits.cardinality();
+        int[] ords = new int[n];
+        for (int i = bits.nextSetBit(0), k = 0; i >= 0; i = bits.nextSetBit(i + 1)) {
+            ords[k++] = i;
+        }
+
+        List<CjkTokenizer.Token> tokens = keyword != null ? CjkTokenizer.queryTokens(keyword) : List.of();
+        int docCount = Math.max(ordinals.size(), 1);
+        // present 用來略過不含 token 的欄位，只對確實出現的欄位計算詞頻
+        BitSet[][] present = new BitSet[FIELDS.length][tokens.size()];
+        double[][] idf = new double[FIELDS.length][tokens.size()];
+        double[] avgLength = new double[FIELDS.length];
+        for (CatalogField field : FIELDS) {
+            avgLength[field.ordinal()] = Math.max(1.0, (double) fieldLengthSum[field.ordinal()] / docCount);
+            for (int t = 0; t < tokens.size(); t++) {
+                BitSet docs = tokenBits(field, tokens.get(t));
+                docs.and(live);
+                int df = docs.cardinality();
+                present[field.ordinal()][t] = docs;
+                idf[field.ordinal()][t] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+        }
+
+        int maxSell = 0;
+        for (int ord : ords) {
+            maxSell = Math.max(maxSell, entries.get(ord).doc.getItemSell());
+        }
+        long today = LocalDate.now().toEpochDay();
+        double logMaxSell = Math.log1p(maxSell);
+
+        // 分數轉為 float 放在高 32 位、itemId 放在低 32 位，以 long 比較即為（分數, itemId）的順序；
+        // 分數都是正數，float 的位元表示與數值大小順序一致
+        PageCursor after = query.getAfter();
+        long cursorKey = after != null ? rankKey((float) after.getScore(), after.getItemId()) : Long.MAX_VALUE;
+        long[] keys = new long[n];
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            Entry entry = entries.get(ords[k]);
+            CatalogDocument doc = entry.doc;
+            double text = tokens.isEmpty() ? 1.0 : bm25(ords[k], tokens, present, idf, avgLength);
+            double popularity = maxSell > 0 ? Math.log1p(doc.getItemSell()) / logMaxSell : 0;
+            double recency = 0;
+            if (days[ords[k]] != NO_DATE) {
+                long age = Math.max(0, today - days[ords[k]]);
+                recency = Math.exp(-age * Math.log(2) / RECENCY_HALF_LIFE_DAYS);
+            }
+            float score = (float) (text * (1 + query.getPopularityWeight() * popularity)
+                    * (1 + query.getRecencyWeight() * recency));
+            long key = rankKey(score, doc.getItemId());
+            if (key < cursorKey) {
+                keys[m++] = key;
+            }
+        }
+
+        long[] top = topKeys(keys, m, Math.min(query.getLimit(), m));
+        List<CatalogDocument> docs = new ArrayList<>(top.length);
+        double[] scores = new double[top.length];
+        for (int k = 0; k < top.length; k++) {
+            docs.add(entries.get(ordinals.get((int) top[k])).doc);
+            scores[k] = Float.intBitsToFloat((int) (top[k] >>> 32));
+        }
+        return new Hits(docs, scores, n);
+    }
+
+    private static long rankKey(float score, int itemId) {
+        return ((long) Float.floatToIntBits(score) << 32) | (itemId & 0xFFFFFFFFL);
+    }
+
+    // keys[0..m) 中最大的 limit 個，由大到小；以大小為 limit 的最小堆積篩選，不必排序全部
+    private static long[] topKeys(long[] keys, int m, int limit) {
+        if (limit >= m) {
+            long[] all = Arrays.copyOf(keys, m);
+            Arrays.sort(all);
+            reverse(all);
+            return all;
+        }
+        long[] heap = new long[limit];
+        int size = 0;
+        for (int i = 0; i < m; i++) {
+            long key = keys[i];
+            if (size < limit) {
+                // 上浮
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] > key) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = key;
+            } else if (limit > 0 && key > heap[0]) {
+                // 取代最小值後下沉
+                int parent = 0;
+                while (true) {
+                    int child = parent * 2 + 1;
+                    if (child >= limit) {
+                        break;
+                    }
+                    if (child + 1 < limit && heap[child + 1] < heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] >= key) {
+                        break;
+                    }
+                    heap[parent] = heap[child];
+                    parent = child;
+                }
+                heap[parent] = key;
+            }
+        }
+        Arrays.sort(heap);
+        reverse(heap);
+        return heap;
+    }
+
+    private static void reverse(long[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    // 各欄位 BM25 分數依欄位權重加總
+    private double bm25(int ordinal, List<CjkTokenizer.Token> tokens, BitSet[][] present,
+            double[][] idf, double[] avgLength) {
+        Entry entry = entries.get(ordinal);
+        double score = 0;
+        for (CatalogField field : FIELDS) {
+            double norm = K1 * (1 - B + B * entry.lengths[field.ordinal()] / avgLength[field.ordinal()]);
+            for (int t = 0; t < tokens.size(); t++) {
+                if (!present[field.ordinal()][t].get(ordinal)) {
+                    continue;
+                }
+                int tf = CjkTokenizer.termFrequency(entry.text[field.ordinal()], tokens.get(t));
+                if (tf > 0) {
+                    score += field.getBoost() * idf[field.ordinal()][t] * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+        }
+        return score;
+    }
+
+    // 結果已依排序排列，二分搜尋第一筆排在游標之後的商品（RELEVANCE 由 rank() 處理）
+    private static int seek(List<CatalogDocument> docs, PageCursor after) {
+        if (after == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = docs.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (after.isBefore(docs.get(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // 關鍵字比對：每個 token 至少出現在一個指定欄位；
+    // 英數單字完全沒有命中時改用拼字最接近的單字，修正後的關鍵字記錄在 selection
+    private BitSet matchKeyword(String keyword, Set<CatalogField> fields, Selection selection) {
+        selection.matchedKeyword = keyword;
+        List<CjkTokenizer.Token> tokens = CjkTokenizer.queryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return new BitSet();
+        }
+
+        StringBuilder corrected = new StringBuilder();
+        int copied = 0;
+        int position = 0;
+        BitSet matched = null;
+        for (CjkTokenizer.Token token : tokens) {
+            BitSet hits = fieldBits(fields, token);
+            if (!token.isCjk()) {
+                int at = keyword.indexOf(token.getText(), position);
+                position = at + token.getText().length();
+                String replacement = hits.intersects(live) ? null : correct(token.getText(), fields);
+                if (replacement != null) {
+                    hits = fieldBits(fields, new CjkTokenizer.Token(replacement, false));
+                    corrected.append(keyword, copied, at).append(replacement);
+                    copied = position;
+                }
+            }
+            if (matched == null) {
+                matched = hits;
+            } else {
+                matched.and(hits);
+            }
+            if (matched.isEmpty()) {
+                break;
+            }
+        }
+        if (copied > 0) {
+            selection.matchedKeyword = corrected.append(keyword, copied, keyword.length()).toString();
+            selection.corrected = true;
+        }
+        matched.and(live);
+        if (matched.isEmpty()) {
+            return matched;
+        }
+
+        // 超過 n-gram 長度的中文片段，需確認在某個欄位中確實相連
+        List<String> phrases = CjkTokenizer.cjkPhrases(keyword);
+        if (!phrases.isEmpty()) {
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+                if (!containsPhrases(entries.get(i), fields, phrases)) {
+                    matched.clear(i);
+                }
+            }
+        }
+        return matched;
+    }
+
+    // 任一欄位含有 token 的商品（含已刪除的序號）
+    private BitSet fieldBits(Set<CatalogField> fields, CjkTokenizer.Token token) {
+        BitSet bits = new BitSet();
+        for (CatalogField field : fields) {
+            bits.or(tokenBits(field, token));
+        }
+        return bits;
+    }
+
+    // 拼字容錯：距離最近、其次符合商品最多的單字，都沒有符合的商品時回傳 null
+    private String correct(String word, Set<CatalogField> fields) {
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestCount = 0;
+        for (String candidate : dictionary.lookup(word)) {
+            int distance = FuzzyTermDictionary.distance(word, candidate, FuzzyTermDictionary.MAX_DISTANCE);
+            if (distance > bestDistance) {
+                break;
+            }
+            BitSet bits = fieldBits(fields, new CjkTokenizer.Token(candidate, false));
+            bits.and(live);
+            int count = bits.cardinality();
+            if (count > bestCount) {
+                best = candidate;
+                bestDistance = distance;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    // 欄位中含有 token 的商品（含已刪除的序號）
+    private BitSet tokenBits(CatalogField field, CjkTokenizer.Token token) {
+        BitSet bits = new BitSet();
+        NavigableMap<String, IntList> fieldPostings = postings.get(field);
+        if (token.isCjk()) {
+            addAll(bits, fieldPostings.get(token.getText()));
+        } else {
+            // 英數單字以前綴比對，例如 "key" 可找到 "keychain"
+            fieldPostings.subMap(token.getText(), true, token.getText() + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(list -> addAll(bits, list));
+        }
+        return bits;
+    }
+
+    private static void addAll(BitSet bits, IntList list) {
+        if (list == null) {
+            return;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            bits.set(list.get(i));
+        }
+    }
+
+    private static boolean containsPhrases(Entry entry, Set<CatalogField> fields, List<String> phrases) {
+        for (String phrase : phrases) {
+            boolean found = false;
+            for (CatalogField field : fields) {
+                if (entry.text[field.ordinal()].contains(phrase)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // column[i] 落在 [min, max] 的序號；(v - min) | (max - v) 為負數表示超出範圍，迴圈內沒有分支
+    private BitSet scan(long[] column, long min, long max) {
+        int size = entries.size();
+        long[] words = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            long v = column[i];
+            words[i >>> 6] |= (~((v - min) | (max - v)) >>> 63) << i;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private BitSet scan(int[] column, long min, long max) {
+        int size = entries.size();
+        long[] words = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            long v = column[i];
+            words[i >>> 6] |= (~((v - min) | (max - v)) >>> 63) << i;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // 金額轉為分，超出 long 範圍的上下限直接夾住
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 2)) > 0) {
+            return Long.MAX_VALUE / 2;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE / 2)) < 0) {
+            return Long.MIN_VALUE / 2;
+        }
+        return cents.longValue();
+    }
+
+    private List<FacetCount> brandFacets(BitSet base) {
+        List<FacetCount> facets = new ArrayList<>();
+        brandBits.forEach((brandName, bits) -> {
+            int count = intersectionCount(base, bits);
+            if (count > 0) {
+                facets.add(new FacetCount(brandName, brandName, count));
+            }
+        });
+        facets.sort(Comparator.comparingInt(FacetCount::getCount).reversed());
+        return facets;
+    }
+
+    private List<FacetCount> categoryFacets(BitSet base) {
+        List<FacetCount> facets = new ArrayList<>();
+        categoryBits.forEach((categoryId, bits) -> {
+            int count = intersectionCount(base, bits);
+            if (count > 0) {
+                facets.add(new FacetCount(String.valueOf(categoryId), categoryNames.get(categoryId), count));
+            }
+        });
+        facets.sort(Comparator.comparingInt(FacetCount::getCount).reversed());
+        return facets;
+    }
+
+    private List<PriceBucket> priceFacets(BitSet base) {
+        List<PriceBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < PRICE_EDGES.length; i++) {
+            BigDecimal max = i + 1 < PRICE_EDGES.length ? PRICE_EDGES[i + 1] : null;
+            buckets.add(new PriceBucket(PRICE_EDGES[i], max, intersectionCount(base, priceBits[i])));
+        }
+        return buckets;
+    }
+
+    // 由新到舊列出有商品的月份
+    private List<FacetCount> monthFacets(BitSet base) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (Map.Entry<YearMonth, BitSet> entry : monthBits.descendingMap().entrySet()) {
+            int count = intersectionCount(base, entry.getValue());
+            if (count > 0) {
+                facets.add(new FacetCount(entry.getKey().toString(), entry.getKey().toString(), count));
+                if (facets.size() == MAX_MONTH_FACETS) {
+                    break;
+                }
+            }
+        }
+        return facets;
+    }
+
+    private static int intersectionCount(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        for (int i = PRICE_EDGES.length - 1; i >= 0; i--) {
+            if (price.compareTo(PRICE_EDGES[i]) >= 0) {
+                return i;
+            }
+        }
+        return -1;   // 負數價格不列入統計
+    }
+
+    private void append(CatalogDocument doc) {
+        int ordinal = entries.size();
+        if (ordinal > 0 && entries.get(ordinal - 1).doc.getItemId() > doc.getItemId()) {
+            ordinalsSorted = false;
+        }
+        String[] text = new String[CatalogField.values().length];
+        int[] lengths = new int[text.length];
+        for (CatalogField field : CatalogField.values()) {
+            text[field.ordinal()] = CjkTokenizer.normalize(doc.getField(field));
+            lengths[field.ordinal()] = CjkTokenizer.length(text[field.ordinal()]);
+            fieldLengthSum[field.ordinal()] += lengths[field.ordinal()];
+            Map<String, IntList> fieldPostings = postings.get(field);
+            for (String term : CjkTokenizer.indexTerms(text[field.ordinal()])) {
+                fieldPostings.computeIfAbsent(term, k -> new IntList()).add(ordinal);
+                dictionary.add(term);
+            }
+        }
+        entries.add(new Entry(doc, text, lengths));
+        if (ordinal == priceCents.length) {
+            priceCents = Arrays.copyOf(priceCents, ordinal * 2);
+            days = Arrays.copyOf(days, ordinal * 2);
+        }
+        priceCents[ordinal] = doc.getItemPrice() != null && doc.getItemPrice().signum() >= 0
+                ? toCents(doc.getItemPrice(), RoundingMode.HALF_UP) : NO_PRICE;
+        days[ordinal] = doc.getItemDate() != null ? (int) doc.getItemDate().toEpochDay() : NO_DATE;
+        ordinals.put(doc.getItemId(), ordinal);
+        live.set(ordinal);
+
+        if (doc.getBrandName() != null) {
+            brandBits.computeIfAbsent(doc.getBrandName(), k -> new BitSet()).set(ordinal);
+        }
+        if (doc.getCategoryId() != null) {
+            categoryBits.computeIfAbsent(doc.getCategoryId(), k -> new BitSet()).set(ordinal);
+            categoryNames.put(doc.getCategoryId(), doc.getCategoryName());
+        }
+        if (doc.getItemPrice() != null && priceBucket(doc.getItemPrice()) >= 0) {
+            priceBits[priceBucket(doc.getItemPrice())].set(ordinal);
+        }
+        if (doc.getItemDate() != null) {
+            monthBits.computeIfAbsent(YearMonth.from(doc.getItemDate()), k -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void markDeleted(int itemId) {
+        Integer ordinal = ordinals.remove(itemId);
+        if (ordinal != null) {
+            live.clear(ordinal);
+            int[] lengths = entries.get(ordinal).lengths;
+            for (int i = 0; i < lengths.length; i++) {
+                fieldLengthSum[i] -= lengths[i];
+            }
+        }
+    }
+
+    // 被刪除的序號仍佔用 posting list，累積過多時重新編號
+    private void compactIfNeeded() {
+        int dead = entries.size() - ordinals.size();
+        if (dead < COMPACT_THRESHOLD || dead < ordinals.size()) {
+            return;
+        }
+        List<CatalogDocument> docs = new ArrayList<>(ordinals.size());
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            docs.add(entries.get(i).doc);
+        }
+        clear();
+        docs.sort(Comparator.comparingInt(CatalogDocument::getItemId));
+        docs.forEach(this::append);
+    }
+
+    private void clear() {
+        entries.clear();
+        ordinals.clear();
+        live.clear();
+        ordinalsSorted = true;
+        postings.values().forEach(Map::clear);
+        Arrays.fill(fieldLengthSum, 0);
+        dictionary.clear();
+        brandBits.clear();
+        categoryBits.clear();
+        categoryNames.clear();
+        for (BitSet bits : priceBits) {
+            bits.clear();
+        }
+        monthBits.clear();
+    }
+
+    // 一次查詢中各條件對應的 BitSet
+    private static class Selection {
+        private BitSet keyword;
+        private String matchedKeyword;   // 實際比對的正規化關鍵字（拼字修正後），沒有關鍵字時為 null
+        private boolean corrected;
+        private BitSet category;
+        private BitSet brand;
+        private BitSet price;
+        private BitSet date;
+
+        BitSet result() {
+            return without(null);
+        }
+
+        // 套用除了 excluded 以外的所有條件
+        BitSet without(BitSet excluded) {
+            BitSet bits = (BitSet) keyword.clone();
+            for (BitSet filter : new BitSet[] { category, brand, price, date }) {
+                if (filter != null && filter != excluded) {
+                    bits.and(filter);
+                }
+            }
+            return bits;
+        }
+    }
+
+    private static class Entry {
+        private final CatalogDocument doc;
+        private final String[] text;   // 依 CatalogField 順序的正規化文字
+        private final int[] lengths;   // 各欄位的 token 數
+
+        private Entry(CatalogDocument doc, String[] text, int[] lengths) {
+            this.doc = doc;
+            this.text = text;
+            this.lengths = lengths;
+        }
+    }
+
+    // 游標之後、最多 limit 筆的結果，scores 只有 RELEVANCE 排序時有值；total 為不考慮游標的符合筆數
+    private static class Hits {
+        private final List<CatalogDocument> docs;
+        private final double[] scores;
+        private final int total;
+
+        private Hits(List<CatalogDocument> docs, double[] scores, int total) {
+            this.docs = docs;
+            this.scores = scores;
+            this.total = total;
+        }
+    }
+}
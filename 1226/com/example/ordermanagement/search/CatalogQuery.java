@@ -0,0 +1,148 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 商品搜尋條件，對應 /itemSearch 與 /itemSearch/filter 的參數
+ */
+public class CatalogQuery {
+
+    private String keyword;
+    private Set<CatalogField> fields = EnumSet.of(CatalogField.NAME, CatalogField.BRAND, CatalogField.CATEGORY);
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer categoryId;
+    private Collection<String> brandNames;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private CatalogSort sort = CatalogSort.NEWEST;
+    private PageCursor after;   // 只回傳排在游標之後的商品
+    private int limit = Integer.MAX_VALUE;   // 最多回傳筆數（不影響總筆數與篩選統計）
+    private double popularityWeight = 0.3;   // RELEVANCE 排序時銷售數量的加權，0 表示不考慮
+    private double recencyWeight = 0.2;      // RELEVANCE 排序時上架日期的加權，0 表示不考慮
+
+    public boolean hasKeyword() {
+        return keyword != null && !keyword.trim().isEmpty();
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public CatalogQuery setKeyword(String keyword) {
+        this.keyword = keyword;
+        return this;
+    }
+
+    public Set<CatalogField> getFields() {
+        return fields;
+    }
+
+    public CatalogQuery setFields(Set<CatalogField> fields) {
+        this.fields = fields;
+        return this;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public CatalogQuery setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+        return this;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public CatalogQuery setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public CatalogQuery setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+        return this;
+    }
+
+    public Collection<String> getBrandNames() {
+        return brandNames;
+    }
+
+    public CatalogQuery setBrandNames(Collection<String> brandNames) {
+        this.brandNames = brandNames;
+        return this;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public CatalogQuery setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+        return this;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public CatalogQuery setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+        return this;
+    }
+
+    public CatalogSort getSort() {
+        return sort;
+    }
+
+    public CatalogQuery setSort(CatalogSort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    public PageCursor getAfter() {
+        return after;
+    }
+
+    public CatalogQuery setAfter(PageCursor after) {
+        this.after = after;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public CatalogQuery setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public double getPopularityWeight() {
+        return popularityWeight;
+    }
+
+    public CatalogQuery setPopularityWeight(double popularityWeight) {
+        this.popularityWeight = popularityWeight;
+        return this;
+    }
+
+    public double getRecencyWeight() {
+        return recencyWeight;
+    }
+
+    public CatalogQuery setRecencyWeight(double recencyWeight) {
+        this.recencyWeight = recencyWeight;
+        return this;
+    }
+}
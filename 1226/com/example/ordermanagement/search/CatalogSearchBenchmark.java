@@ -0,0 +1,194 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 搜尋索引效能量測（不需啟動 Spring，也不連資料庫）
+ *
+ * 產生指定數量的模擬商品後，分別量測最新排序、相關性排序、含錯字關鍵字的查詢延遲分佈，
+ * 結構化篩選（欄位陣列掃描對照逐筆比較），以及 10 萬個單字的拼字容錯字典查詢延遲：
+ *   java com.example.ordermanagement.search.CatalogSearchBenchmark [商品數量] [查詢次數]
+ */
+public class CatalogSearchBenchmark {
+
+    private static final String[] CHARACTERS = { "吉伊卡哇", "小八貓", "兔兔", "栗子饅頭", "飛鼠", "海獺", "睡衣小狗" };
+    private static final String[] PRODUCTS = { "娃娃", "吊飾", "馬克杯", "鑰匙圈", "抱枕", "貼紙", "帆布袋", "扭蛋", "Keychain", "Plush" };
+    private static final String[] VARIANTS = { "限定版", "ＬＩＭＩＴＥＤ", "2024", "聖誕節", "一番賞", "Mini", "XL" };
+    private static final String[] BRANDS = { "Chiikawa", "ちいかわ", "Sanrio", "吉伊卡哇官方", "Nagano" };
+    private static final String[] CATEGORIES = { "玩偶", "文具", "生活用品", "服飾", "收藏品" };
+
+    private static final String[] QUERIES = { "吉伊卡哇", "卡哇", "娃娃", "小八", "栗子饅頭吊飾", "chii", "keychain",
+            "limited", "ＬＩＭＩＴＥＤ", "2024", "sanrio 馬克杯", "一番賞", "睡衣小狗 抱枕", "海獺", "plush xl" };
+
+    private static final String[] TYPOS = { "keychian", "plsuh", "limted", "sanrioo", "chiikwa 娃娃", "nagnao", "mnii" };
+
+    private static final int PAGE_SIZE = 25;
+    private static final int DICTIONARY_TERMS = 100_000;
+
+    public static void main(String[] args) {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        Random random = new Random(42);
+        List<CatalogDocument> docs = new ArrayList<>(itemCount);
+        for (int i = 1; i <= itemCount; i++) {
+            String name = pick(random, CHARACTERS) + pick(random, PRODUCTS) + " " + pick(random, VARIANTS);
+            int brand = random.nextInt(BRANDS.length);
+            int category = random.nextInt(CATEGORIES.length);
+            docs.add(new CatalogDocument(i, name, brand, BRANDS[brand], category, CATEGORIES[category],
+                    "商品說明 " + pick(random, CHARACTERS), BigDecimal.valueOf(100 + random.nextInt(2000)),
+                    LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)), random.nextInt(500)));
+        }
+
+        CatalogIndex index = new CatalogIndex();
+        long buildStart = System.nanoTime();
+        index.replaceAll(docs);
+        System.out.printf("建立索引：%d 筆，%.1f ms%n", itemCount, (System.nanoTime() - buildStart) / 1e6);
+
+        measure(index, CatalogSort.NEWEST, QUERIES, queryCount);
+        measure(index, CatalogSort.RELEVANCE, QUERIES, queryCount);
+        measure(index, CatalogSort.RELEVANCE, TYPOS, queryCount);
+        measureFilters(index, docs, random, queryCount);
+        measureDictionary(random, queryCount);
+    }
+
+    // 與游標分頁相同，每次只取一頁（多一筆判斷是否有下一頁）
+    private static void measure(CatalogIndex index, CatalogSort sort, String[] queries, int queryCount) {
+        // 預熱 JIT
+        for (int i = 0; i < 2_000; i++) {
+            index.search(new CatalogQuery().setKeyword(queries[i % queries.length]).setSort(sort).setLimit(PAGE_SIZE + 1), false);
+        }
+
+        long[] latencies = new long[queryCount];
+        long totalHits = 0;
+        for (int i = 0; i < queryCount; i++) {
+            CatalogQuery query = new CatalogQuery().setKeyword(queries[i % queries.length]).setSort(sort).setLimit(PAGE_SIZE + 1);
+            long start = System.nanoTime();
+            totalHits += index.search(query, false).getTotal();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("[%s%s] 查詢 %d 次，平均命中 %d 筆%n", sort, queries == TYPOS ? "，錯字" : "",
+                queryCount, totalHits / queryCount);
+        print(latencies);
+    }
+
+    // 沒有關鍵字、只有價格／日期／品牌／分類條件：欄位陣列掃描對照逐筆比較 BigDecimal 與 LocalDate
+    // （逐筆比較即 filterItems 原本 Criteria 條件在記憶體中的寫法；資料庫端的時間需另外連線量測）
+    private static void measureFilters(CatalogIndex index, List<CatalogDocument> docs, Random random, int queryCount) {
+        CatalogQuery[] queries = new CatalogQuery[queryCount];
+        for (int i = 0; i < queryCount; i++) {
+            int minPrice = 100 + random.nextInt(1000);
+            LocalDate start = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(200));
+            queries[i] = new CatalogQuery()
+                    .setMinPrice(BigDecimal.valueOf(minPrice))
+                    .setMaxPrice(BigDecimal.valueOf(minPrice + 500 + random.nextInt(500)))
+                    .setStartDate(start)
+                    .setEndDate(start.plusDays(30 + random.nextInt(120)))
+                    .setBrandNames(random.nextBoolean() ? List.of(pick(random, BRANDS)) : null)
+                    .setCategoryId(random.nextBoolean() ? random.nextInt(CATEGORIES.length) : null)
+                    .setLimit(PAGE_SIZE + 1);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            index.search(queries[i % queryCount], true);
+            rowScan(docs, queries[i % queryCount]);
+        }
+
+        long[] columnar = new long[queryCount];
+        long[] rows = new long[queryCount];
+        long columnarHits = 0;
+        long rowHits = 0;
+        for (int i = 0; i < queryCount; i++) {
+            long start = System.nanoTime();
+            columnarHits += index.search(queries[i], true).getTotal();
+            columnar[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            rowHits += rowScan(docs, queries[i]);
+            rows[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(columnar);
+        Arrays.sort(rows);
+
+        System.out.printf("[篩選，欄位掃描＋統計] 查詢 %d 次，平均命中 %d 筆%n", queryCount, columnarHits / queryCount);
+        print(columnar);
+        System.out.printf("[篩選，逐筆比較] 查詢 %d 次，平均命中 %d 筆%n", queryCount, rowHits / queryCount);
+        print(rows);
+    }
+
+    private static int rowScan(List<CatalogDocument> docs, CatalogQuery query) {
+        Set<String> brands = query.getBrandNames() != null ? Set.copyOf(query.getBrandNames()) : null;
+        int hits = 0;
+        for (CatalogDocument doc : docs) {
+            if (doc.getItemPrice().compareTo(query.getMinPrice()) >= 0
+                    && doc.getItemPrice().compareTo(query.getMaxPrice()) <= 0
+                    && !doc.getItemDate().isBefore(query.getStartDate())
+                    && !doc.getItemDate().isAfter(query.getEndDate())
+                    && (brands == null || brands.contains(doc.getBrandName()))
+                    && (query.getCategoryId() == null || query.getCategoryId().equals(doc.getCategoryId()))) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    // 10 萬個隨機英文單字的拼字容錯字典，查詢打錯一個字的單字
+    private static void measureDictionary(Random random, int queryCount) {
+        String[] words = new String[DICTIONARY_TERMS];
+        FuzzyTermDictionary dictionary = new FuzzyTermDictionary();
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < words.length; i++) {
+            char[] chars = new char[5 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(chars);
+            dictionary.add(words[i]);
+        }
+        System.out.printf("建立拼字字典：%d 個單字，%.1f ms%n", dictionary.size(), (System.nanoTime() - buildStart) / 1e6);
+
+        String[] typos = new String[queryCount];
+        for (int i = 0; i < typos.length; i++) {
+            char[] chars = words[random.nextInt(words.length)].toCharArray();
+            chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+            typos[i] = new String(chars);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            dictionary.lookup(typos[i % typos.length]);
+        }
+
+        long[] latencies = new long[queryCount];
+        long found = 0;
+        for (int i = 0; i < queryCount; i++) {
+            long start = System.nanoTime();
+            found += dictionary.lookup(typos[i]).isEmpty() ? 0 : 1;
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("[拼字字典] 查詢 %d 次，找到候選 %d 次%n", queryCount, found);
+        print(latencies);
+    }
+
+    private static void print(long[] sorted) {
+        System.out.printf("p50 = %.1f µs, p90 = %.1f µs, p99 = %.1f µs, max = %.1f µs%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                sorted[sorted.length - 1] / 1e3);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e3;
+    }
+}
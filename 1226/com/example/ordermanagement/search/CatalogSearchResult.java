@@ -0,0 +1,56 @@
+package com.example.ordermanagement.search;
+
+import java.util.List;
+
+/**
+ * 搜尋結果：符合的 itemId（依查詢的排序，若有游標則從游標之後開始）、總筆數與篩選統計
+ */
+public class CatalogSearchResult {
+
+    private final List<CatalogDocument> docs;
+    private final double[] scores;   // 只有 RELEVANCE 排序時有值，與 docs 對應
+    private final CatalogSort sort;
+    private final List<Integer> itemIds;
+    private final int total;
+    private final CatalogFacets facets;
+    private final String correction;
+
+    CatalogSearchResult(List<CatalogDocument> docs, double[] scores, CatalogSort sort, int total,
+            CatalogFacets facets, String correction) {
+        this.docs = docs;
+        this.scores = scores;
+        this.sort = sort;
+        this.itemIds = docs.stream().map(CatalogDocument::getItemId).toList();
+        this.total = total;
+        this.facets = facets;
+        this.correction = correction;
+    }
+
+    public List<Integer> getItemIds() {
+        return itemIds;
+    }
+
+    // 不考慮游標的符合總筆數
+    public int getTotal() {
+        return total;
+    }
+
+    // 沒有要求統計時為 null
+    public CatalogFacets getFacets() {
+        return facets;
+    }
+
+    // 關鍵字有錯字而改用修正後的關鍵字搜尋時，為修正後的關鍵字（已正規化）；否則為 null
+    public String getCorrection() {
+        return correction;
+    }
+
+    /**
+     * 以第 position 筆（從 0 開始）為最後一筆時，下一頁的游標
+     */
+    public PageCursor cursorAt(int position) {
+        CatalogDocument doc = docs.get(position);
+        return new PageCursor(sort, sort == CatalogSort.PRICE ? doc.getItemPrice() : null,
+                scores != null ? scores[position] : 0, doc.getItemId());
+    }
+}
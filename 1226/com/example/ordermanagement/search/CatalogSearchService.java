@@ -0,0 +1,122 @@
+package com.example.ordermanagement.search;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.ordermanagement.model.ItemRepository;
+
+/**
+ * 商品目錄搜尋服務
+ *
+ * 啟動時從資料庫建立索引與自動完成的前綴樹，之後由 ItemService 的新增 / 修改 / 刪除同步更新。
+ * 索引尚未建立完成前 isReady() 為 false，呼叫端應改走原本的資料庫查詢。
+ */
+@Service
+public class CatalogSearchService {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    private final CatalogIndex index = new CatalogIndex();
+
+    private final CatalogSuggester suggester = new CatalogSuggester();
+
+    private volatile boolean ready = false;
+
+    // 應用程式啟動完成後重建索引
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<CatalogDocument> docs = itemRepository.findAllForSearchIndex().stream()
+                .map(CatalogDocument::of)
+                .collect(Collectors.toList());
+        index.replaceAll(docs);
+        suggester.replaceAll(docs);
+        searchResultCache.clear();
+        ready = true;
+        System.out.println("商品搜尋索引建立完成：" + docs.size() + " 筆，耗時 "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 重新讀取單一商品並更新索引（商品不存在時視為刪除）
+     */
+    public void index(int itemId) {
+        itemRepository.findByIdForSearchIndex(itemId).ifPresentOrElse(
+                item -> put(CatalogDocument.of(item)),
+                () -> remove(itemId));
+    }
+
+    public void remove(int itemId) {
+        CatalogDocument before = index.get(itemId);
+        index.remove(itemId);
+        suggester.remove(itemId);
+        searchResultCache.invalidate(before, null);
+    }
+
+    /**
+     * 品牌名稱變更時，重新索引該品牌底下的商品
+     */
+    public void reindexBrand(int brandId) {
+        itemRepository.findByBrandIdForSearchIndex(brandId)
+                .forEach(item -> put(CatalogDocument.of(item)));
+    }
+
+    /**
+     * 分類名稱變更時，重新索引該分類底下的商品
+     */
+    public void reindexCategory(int categoryId) {
+        itemRepository.findByCategoryIdForSearchIndex(categoryId)
+                .forEach(item -> put(CatalogDocument.of(item)));
+    }
+
+    /**
+     * 搜尋並回傳符合條件的 itemId（依查詢的排序）
+     */
+    public List<Integer> search(CatalogQuery query) {
+        return index.search(query).stream()
+                .map(CatalogDocument::getItemId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 搜尋並附上側邊欄篩選條件的統計數量
+     */
+    public CatalogSearchResult searchWithFacets(CatalogQuery query) {
+        return index.searchWithFacets(query);
+    }
+
+    /**
+     * 搜尋並回傳可產生下一頁游標的結果，withFacets 為 false 時不計算統計數量
+     */
+    public CatalogSearchResult search(CatalogQuery query, boolean withFacets) {
+        return index.search(query, withFacets);
+    }
+
+    /**
+     * 搜尋框自動完成建議（索引尚未建立時回傳空清單）
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggester.suggest(prefix, limit);
+    }
+
+    // 同步索引、自動完成與結果快取
+    private void put(CatalogDocument doc) {
+        CatalogDocument before = index.get(doc.getItemId());
+        index.put(doc);
+        suggester.put(doc);
+        searchResultCache.invalidate(before, doc);
+    }
+}
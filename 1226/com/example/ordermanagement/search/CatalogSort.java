@@ -0,0 +1,36 @@
+package com.example.ordermanagement.search;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * 商品列表排序方式
+ */
+public enum CatalogSort {
+    NEWEST,  // itemId 由新到舊
+    PRICE,   // itemPrice 由低到高，同價格依 itemId 由舊到新（與 SQL Server 相同，無價格者排最前）
+    RELEVANCE; // 相關性分數由高到低，同分依 itemId 由新到舊（只有搜尋索引支援，資料庫查詢視同 NEWEST）
+
+    /**
+     * 對應前端的 sort 參數（newest / price / relevance）
+     */
+    public static CatalogSort fromParam(String value) {
+        if (value == null || value.isEmpty() || "newest".equalsIgnoreCase(value)) {
+            return NEWEST;
+        }
+        if ("price".equalsIgnoreCase(value)) {
+            return PRICE;
+        }
+        if ("relevance".equalsIgnoreCase(value)) {
+            return RELEVANCE;
+        }
+        throw new IllegalArgumentException("不支援的排序方式：" + value);
+    }
+
+    // 資料庫查詢使用的排序，最後一個鍵必須是 itemId 以確保順序唯一
+    public Sort toSort() {
+        if (this == PRICE) {
+            return Sort.by(Sort.Order.asc("itemPrice"), Sort.Order.asc("itemId"));
+        }
+        return Sort.by(Sort.Direction.DESC, "itemId");
+    }
+}
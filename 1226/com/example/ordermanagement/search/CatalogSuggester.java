@@ -0,0 +1,263 @@
+package com.example.ordermanagement.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜尋框自動完成：商品名稱、品牌名稱、分類名稱的前綴建議
+ *
+ * 商品以銷售數量（itemSell）為權重，品牌與分類以旗下商品銷售數量的總和為權重。
+ * 除了從開頭比對外，英數單字開頭與每個中文字開頭也可以比對（例如「卡哇」可找到「吉伊卡哇」），
+ * 這些中段起始的 key 只保留前 MAX_SUFFIX_LENGTH 個字元，避免前綴樹過大。
+ */
+public class CatalogSuggester {
+
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_SUFFIX_LENGTH = 8;
+
+    private final SuggestionTrie trie = new SuggestionTrie();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, ItemEntry> items = new HashMap<>();
+    private final Map<String, Group> brands = new HashMap<>();
+    private final Map<String, Group> categories = new HashMap<>();
+
+    private static class ItemEntry {
+        private final CatalogDocument doc;
+        private final Suggestion suggestion;
+
+        private ItemEntry(CatalogDocument doc, Suggestion suggestion) {
+            this.doc = doc;
+            this.suggestion = suggestion;
+        }
+    }
+
+    // 品牌或分類：旗下商品數量與銷售總和
+    private static class Group {
+        private int itemCount;
+        private long weight;
+        private Suggestion suggestion;
+    }
+
+    /**
+     * 新增或更新商品；名稱、品牌、分類與銷售數量都沒變時不做任何事
+     */
+    public void put(CatalogDocument doc) {
+        lock.writeLock().lock();
+        try {
+            ItemEntry old = items.get(doc.getItemId());
+            if (old != null && sameSuggestion(old.doc, doc)) {
+                items.put(doc.getItemId(), new ItemEntry(doc, old.suggestion));
+                return;
+            }
+            if (old == null) {
+                addItem(doc);
+                return;
+            }
+            // 名稱不變時就地取代；品牌、分類不變時只調整權重差
+            Suggestion suggestion = new Suggestion(doc.getItemName(), Suggestion.Type.ITEM, doc.getItemId(), doc.getItemSell());
+            items.put(doc.getItemId(), new ItemEntry(doc, suggestion));
+            if (Objects.equals(old.doc.getItemName(), doc.getItemName())) {
+                trie.replace(keys(doc.getItemName()), old.suggestion, suggestion);
+            } else {
+                removeKeys(old.doc.getItemName(), old.suggestion);
+                addKeys(doc.getItemName(), suggestion);
+            }
+            move(brands, old.doc.getBrandName(), doc.getBrandName(), old.doc.getItemSell(), doc.getItemSell(), Suggestion.Type.BRAND);
+            move(categories, old.doc.getCategoryName(), doc.getCategoryName(), old.doc.getItemSell(), doc.getItemSell(), Suggestion.Type.CATEGORY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            ItemEntry old = items.get(itemId);
+            if (old != null) {
+                removeItem(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以新的商品集合整批重建
+     */
+    public void replaceAll(Collection<CatalogDocument> docs) {
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            items.clear();
+            brands.clear();
+            categories.clear();
+
+            // 先彙總品牌與分類的權重，各只加入前綴樹一次
+            for (CatalogDocument doc : docs) {
+                Suggestion suggestion = new Suggestion(doc.getItemName(), Suggestion.Type.ITEM, doc.getItemId(), doc.getItemSell());
+                items.put(doc.getItemId(), new ItemEntry(doc, suggestion));
+                addKeys(doc.getItemName(), suggestion);
+                accumulate(brands, doc.getBrandName(), doc.getItemSell());
+                accumulate(categories, doc.getCategoryName(), doc.getItemSell());
+            }
+            brands.forEach((name, group) -> publish(name, group, Suggestion.Type.BRAND));
+            categories.forEach((name, group) -> publish(name, group, Suggestion.Type.CATEGORY));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 前綴建議，相同文字只回傳一次
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<Suggestion> result = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Suggestion suggestion : trie.get(key)) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (seen.add(suggestion.getType() + "|" + suggestion.getText())) {
+                    result.add(suggestion);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addItem(CatalogDocument doc) {
+        Suggestion suggestion = new Suggestion(doc.getItemName(), Suggestion.Type.ITEM, doc.getItemId(), doc.getItemSell());
+        items.put(doc.getItemId(), new ItemEntry(doc, suggestion));
+        addKeys(doc.getItemName(), suggestion);
+        adjust(brands, doc.getBrandName(), 1, doc.getItemSell(), Suggestion.Type.BRAND);
+        adjust(categories, doc.getCategoryName(), 1, doc.getItemSell(), Suggestion.Type.CATEGORY);
+    }
+
+    private void removeItem(ItemEntry entry) {
+        CatalogDocument doc = entry.doc;
+        items.remove(doc.getItemId());
+        removeKeys(doc.getItemName(), entry.suggestion);
+        adjust(brands, doc.getBrandName(), -1, -doc.getItemSell(), Suggestion.Type.BRAND);
+        adjust(categories, doc.getCategoryName(), -1, -doc.getItemSell(), Suggestion.Type.CATEGORY);
+    }
+
+    private void move(Map<String, Group> groups, String oldName, String newName, long oldWeight, long newWeight,
+            Suggestion.Type type) {
+        if (Objects.equals(oldName, newName)) {
+            adjust(groups, newName, 0, newWeight - oldWeight, type);
+        } else {
+            adjust(groups, oldName, -1, -oldWeight, type);
+            adjust(groups, newName, 1, newWeight, type);
+        }
+    }
+
+    private static void accumulate(Map<String, Group> groups, String name, long weight) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        Group group = groups.computeIfAbsent(name, n -> new Group());
+        group.itemCount++;
+        group.weight += weight;
+    }
+
+    private void publish(String name, Group group, Suggestion.Type type) {
+        group.suggestion = new Suggestion(name, type, null, group.weight);
+        addKeys(name, group.suggestion);
+    }
+
+    // 品牌或分類的商品數量、權重變動時，以新權重重新放入前綴樹；沒有商品時移除
+    private void adjust(Map<String, Group> groups, String name, int itemDelta, long weightDelta, Suggestion.Type type) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        if (itemDelta == 0 && weightDelta == 0) {
+            return;
+        }
+        Group group = groups.computeIfAbsent(name, n -> new Group());
+        group.itemCount += itemDelta;
+        group.weight += weightDelta;
+        Suggestion old = group.suggestion;
+        if (group.itemCount <= 0) {
+            groups.remove(name);
+            if (old != null) {
+                removeKeys(name, old);
+            }
+        } else if (old == null) {
+            publish(name, group, type);
+        } else if (old.getWeight() != group.weight) {
+            group.suggestion = new Suggestion(name, type, null, group.weight);
+            trie.replace(keys(name), old, group.suggestion);
+        }
+    }
+
+    private void addKeys(String text, Suggestion suggestion) {
+        for (String key : keys(text)) {
+            trie.add(key, suggestion);
+        }
+    }
+
+    private void removeKeys(String text, Suggestion suggestion) {
+        trie.remove(keys(text), suggestion);
+    }
+
+    private static boolean sameSuggestion(CatalogDocument a, CatalogDocument b) {
+        return Objects.equals(a.getItemName(), b.getItemName())
+                && Objects.equals(a.getBrandName(), b.getBrandName())
+                && Objects.equals(a.getCategoryName(), b.getCategoryName())
+                && a.getItemSell() == b.getItemSell();
+    }
+
+    // 整段文字，以及從每個英數單字開頭、每個中文字開始的片段
+    static Set<String> keys(String text) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(truncate(normalized, MAX_KEY_LENGTH));
+        int previous = -1;
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            boolean cjk = CjkTokenizer.isCjk(cp);
+            boolean wordStart = Character.isLetterOrDigit(cp)
+                    && (previous < 0 || !Character.isLetterOrDigit(previous) || CjkTokenizer.isCjk(previous));
+            if (i > 0 && (cjk || wordStart)) {
+                keys.add(truncate(normalized.substring(i), MAX_SUFFIX_LENGTH));
+            }
+            previous = cp;
+            i += Character.charCount(cp);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return CjkTokenizer.normalize(text).trim().replaceAll("\\s+", " ");
+    }
+
+    private static String truncate(String text, int length) {
+        if (text.length() <= length) {
+            return text;
+        }
+        // 不在代理對中間截斷
+        int end = Character.isHighSurrogate(text.charAt(length - 1)) ? length - 1 : length;
+        return text.substring(0, end);
+    }
+}
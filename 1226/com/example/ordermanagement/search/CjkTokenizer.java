@@ -0,0 +1,187 @@
+package com.example.ordermanagement.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 中日韓文字感知的分詞器
+ *
+ * 中文商品名稱沒有空白分隔，因此 CJK 連續字元切成 1~3 字的 n-gram；
+ * 英文與數字則以整個單字為 token。分詞前先做 NFKC 正規化（全形轉半形）與小寫轉換。
+ */
+public class CjkTokenizer {
+
+    private static final int MAX_GRAM = 3;
+
+    /**
+     * 單一 token，cjk 為 true 表示 n-gram，否則為英數單字
+     */
+    public static class Token {
+        private final String text;
+        private final boolean cjk;
+
+        Token(String text, boolean cjk) {
+            this.text = text;
+            this.cjk = cjk;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isCjk() {
+            return cjk;
+        }
+    }
+
+    /**
+     * 全形轉半形並轉為小寫
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 建立索引用：CJK 連續字元的所有 1~3-gram，以及每個英數單字
+     */
+    public static Set<String> indexTerms(String normalized) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Run run : runs(normalized)) {
+            if (run.cjk) {
+                int[] cps = run.text.codePoints().toArray();
+                for (int i = 0; i < cps.length; i++) {
+                    for (int n = 1; n <= MAX_GRAM && i + n <= cps.length; n++) {
+                        terms.add(new String(cps, i, n));
+                    }
+                }
+            } else {
+                terms.add(run.text);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 查詢用：CJK 連續字元取最長可用的 n-gram（較短的 posting list），英數單字原樣保留
+     */
+    public static List<Token> queryTokens(String normalized) {
+        List<Token> tokens = new ArrayList<>();
+        for (Run run : runs(normalized)) {
+            if (!run.cjk) {
+                tokens.add(new Token(run.text, false));
+                continue;
+            }
+            int[] cps = run.text.codePoints().toArray();
+            int n = Math.min(MAX_GRAM, cps.length);
+            for (int i = 0; i + n <= cps.length; i++) {
+                tokens.add(new Token(new String(cps, i, n), true));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 查詢中的 CJK 連續片段，用於確認 n-gram 在原文中確實相連
+     */
+    public static List<String> cjkPhrases(String normalized) {
+        List<String> phrases = new ArrayList<>();
+        for (Run run : runs(normalized)) {
+            if (run.cjk && run.text.codePointCount(0, run.text.length()) > MAX_GRAM) {
+                phrases.add(run.text);
+            }
+        }
+        return phrases;
+    }
+
+    /**
+     * 欄位長度（token 數）：每個 CJK 字元與每個英數單字各算一個
+     */
+    public static int length(String normalized) {
+        int length = 0;
+        for (Run run : runs(normalized)) {
+            length += run.cjk ? run.text.codePointCount(0, run.text.length()) : 1;
+        }
+        return length;
+    }
+
+    /**
+     * token 在欄位中出現的次數：n-gram 計算出現次數，英數單字計算以其為前綴的單字數
+     */
+    public static int termFrequency(String normalized, Token token) {
+        String text = token.getText();
+        int count = 0;
+        for (int i = normalized.indexOf(text); i >= 0; i = normalized.indexOf(text, i + 1)) {
+            // 英數單字只計算出現在單字開頭的位置（與 runs() 相同的單字邊界）
+            if (token.isCjk() || i == 0 || !continuesWord(normalized.codePointBefore(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 前一個字元為英數字（非 CJK）時，目前位置位於單字中間
+    private static boolean continuesWord(int previous) {
+        return Character.isLetterOrDigit(previous) && !isCjk(previous);
+    }
+
+    // 依文字種類切成連續片段，標點與空白作為分隔
+    private static List<Run> runs(String text) {
+        List<Run> runs = new ArrayList<>();
+        int start = -1;
+        boolean startCjk = false;
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            int width = Character.charCount(cp);
+            boolean cjk = isCjk(cp);
+            boolean word = cjk || Character.isLetterOrDigit(cp);
+
+            if (start >= 0 && (!word || cjk != startCjk)) {
+                runs.add(new Run(text.substring(start, i), startCjk));
+                start = -1;
+            }
+            if (word && start < 0) {
+                start = i;
+                startCjk = cjk;
+            }
+            i += width;
+        }
+        if (start >= 0) {
+            runs.add(new Run(text.substring(start), startCjk));
+        }
+        return runs;
+    }
+
+    static boolean isCjk(int codePoint) {
+        // 常見範圍先直接判斷，其餘才查 UnicodeScript（二分搜尋）
+        if (codePoint < 0x1100) {
+            return false;
+        }
+        if ((codePoint >= 0x4E00 && codePoint <= 0x9FFF) || (codePoint >= 0x3040 && codePoint <= 0x30FF)) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.BOPOMOFO;
+    }
+
+    private static class Run {
+        private final String text;
+        private final boolean cjk;
+
+        private Run(String text, boolean cjk) {
+            this.text = text;
+            this.cjk = cjk;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ordermanagement.search;
+
+/**
+ * 單一篩選項目的商品數量（品牌、分類、上架月份）
+ */
+public class FacetCount {
+
+    private final String value;   // 篩選時要帶回的值
+    private final String label;   // 顯示名稱
+    private final int count;
+
+    public FacetCount(String value, String label, int count) {
+        this.value = value;
+        this.label = label;
+        this.count = count;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
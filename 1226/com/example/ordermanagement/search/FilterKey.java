@@ -0,0 +1,181 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * /itemSearch/filter 的快取鍵：正規化後的篩選條件與分頁參數
+ *
+ * 關鍵字經 NFKC、小寫與空白整理，品牌排序去重，價格去掉多餘的 0，
+ * 讓「同義」的請求（例如品牌順序不同）共用同一筆快取。
+ */
+public final class FilterKey {
+
+    private final String keyword;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Integer categoryId;
+    private final List<String> brandNames;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final int page;
+    private final int size;
+    private final CatalogSort sort;
+    private final String cursor;       // null 表示頁碼分頁
+    private final boolean withCount;
+
+    private FilterKey(String keyword, BigDecimal minPrice, BigDecimal maxPrice, Integer categoryId,
+            List<String> brandNames, LocalDate startDate, LocalDate endDate, int page, int size,
+            CatalogSort sort, String cursor, boolean withCount) {
+        this.keyword = keyword;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.categoryId = categoryId;
+        this.brandNames = brandNames;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.page = page;
+        this.size = size;
+        this.sort = sort;
+        this.cursor = cursor;
+        this.withCount = withCount;
+    }
+
+    public static FilterKey of(String keyword, BigDecimal minPrice, BigDecimal maxPrice, Long categoryId,
+            Collection<String> brandNames, LocalDate startDate, LocalDate endDate, int page, int size,
+            CatalogSort sort, String cursor, boolean withCount) {
+        String normalized = keyword == null ? "" : CjkTokenizer.normalize(keyword).trim().replaceAll("\\s+", " ");
+        boolean paged = cursor == null;
+        return new FilterKey(
+                normalized.isEmpty() ? null : normalized,
+                minPrice != null ? minPrice.stripTrailingZeros() : null,
+                maxPrice != null ? maxPrice.stripTrailingZeros() : null,
+                categoryId != null && categoryId > 0 ? categoryId.intValue() : null,
+                brandNames == null ? List.of() : new ArrayList<>(new TreeSet<>(brandNames)),
+                startDate, endDate,
+                paged ? page : 0, size, sort, cursor,
+                !paged && withCount);
+    }
+
+    /**
+     * 商品是否可能影響這筆快取的內容（保守判斷，寧可多失效也不漏）
+     *
+     * 商品列表只受完全符合條件的商品影響；篩選統計是「排除自身條件」計算的，
+     * 所以只差一個條件（分類、品牌、價格或日期）不符的商品也會改變統計數量。
+     */
+    public boolean mayContain(CatalogDocument doc) {
+        if (doc == null || !mayMatchKeyword(doc)) {
+            return false;
+        }
+        int failed = 0;
+        if (categoryId != null && !categoryId.equals(doc.getCategoryId())) {
+            failed++;
+        }
+        if (!brandNames.isEmpty() && !brandNames.contains(doc.getBrandName())) {
+            failed++;
+        }
+        if (!mayMatchPrice(doc)) {
+            failed++;
+        }
+        if (!mayMatchDate(doc)) {
+            failed++;
+        }
+        return failed == 0 || (hasFacets() && failed == 1);
+    }
+
+    // 頁碼分頁每頁都有統計，游標分頁只有第一頁有
+    private boolean hasFacets() {
+        return cursor == null || cursor.isEmpty();
+    }
+
+    // 索引的 token 都來自正規化後的欄位文字，因此「每個 token 都出現在某個欄位中」是比對結果的超集合；
+    // 英文單字沒有商品符合時，索引會改用拼字相近的詞，所以欄位中有相近的單字也算可能符合
+    private boolean mayMatchKeyword(CatalogDocument doc) {
+        if (keyword == null) {
+            return true;
+        }
+        List<String> fields = new ArrayList<>();
+        for (CatalogField field : CatalogField.values()) {
+            if (field != CatalogField.INFO) {
+                fields.add(CjkTokenizer.normalize(doc.getField(field)));
+            }
+        }
+        Set<String> words = null;
+        for (CjkTokenizer.Token token : CjkTokenizer.queryTokens(keyword)) {
+            String text = token.getText();
+            if (fields.stream().anyMatch(field -> field.contains(text))) {
+                continue;
+            }
+            int allowed = token.isCjk() ? 0 : FuzzyTermDictionary.allowedDistance(text);
+            if (allowed == 0) {
+                return false;
+            }
+            if (words == null) {
+                words = new HashSet<>();
+                for (String field : fields) {
+                    words.addAll(CjkTokenizer.indexTerms(field));
+                }
+            }
+            if (words.stream().noneMatch(word -> FuzzyTermDictionary.distance(text, word, allowed) <= allowed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean mayMatchPrice(CatalogDocument doc) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        BigDecimal price = doc.getItemPrice();
+        return price != null
+                && (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    private boolean mayMatchDate(CatalogDocument doc) {
+        if (startDate == null && endDate == null) {
+            return true;
+        }
+        LocalDate date = doc.getItemDate();
+        return date != null
+                && (startDate == null || !date.isBefore(startDate))
+                && (endDate == null || !date.isAfter(endDate));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FilterKey)) {
+            return false;
+        }
+        FilterKey other = (FilterKey) o;
+        return page == other.page
+                && size == other.size
+                && withCount == other.withCount
+                && Objects.equals(keyword, other.keyword)
+                && Objects.equals(minPrice, other.minPrice)
+                && Objects.equals(maxPrice, other.maxPrice)
+                && Objects.equals(categoryId, other.categoryId)
+                && brandNames.equals(other.brandNames)
+                && Objects.equals(startDate, other.startDate)
+                && Objects.equals(endDate, other.endDate)
+                && sort == other.sort
+                && Objects.equals(cursor, other.cursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyword, minPrice, maxPrice, categoryId, brandNames, startDate, endDate,
+                page, size, sort, cursor, withCount);
+    }
+}
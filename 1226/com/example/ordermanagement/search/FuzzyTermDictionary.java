@@ -0,0 +1,217 @@
+package com.example.ordermanagement.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 英數單字的拼字容錯字典（SymSpell 刪除字典）
+ *
+ * 每個單字預先產生「刪掉最多 2 個字元」的所有變形，查詢時對輸入做同樣的刪除，
+ * 兩邊有相同變形的單字才是候選，再以編輯距離（含相鄰字元對調）確認。
+ * 只取單字前 7 個字元產生變形，字典大小與單字長度無關；變形只存 hash 與單字編號，
+ * 10 萬個單字約佔數十 MB。
+ *
+ * 非執行緒安全，由 CatalogIndex 的讀寫鎖保護。
+ */
+class FuzzyTermDictionary {
+
+    static final int MAX_DISTANCE = 2;
+
+    private static final int PREFIX_LENGTH = 7;
+    private static final int MIN_LENGTH = 4;       // 太短的單字容錯後幾乎都能命中，不做模糊比對
+    private static final int MAX_CANDIDATES = 256; // 每次查詢最多驗證的候選數，控制最壞情況的延遲
+
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, Integer> termIds = new HashMap<>();
+
+    // 以 hash 串接的變形表：slots[hash & mask] → 第一筆，next 指向同一格的下一筆
+    private int[] slots = newSlots(1 << 12);
+    private int[] hashes = new int[1 << 12];
+    private int[] owners = new int[1 << 12];
+    private int[] next = new int[1 << 12];
+    private int count;
+
+    /**
+     * 加入單字（已正規化），含數字或長度不足的單字略過
+     */
+    void add(String term) {
+        if (term.length() < MIN_LENGTH || termIds.containsKey(term) || !isWord(term)) {
+            return;
+        }
+        int id = terms.size();
+        terms.add(term);
+        termIds.put(term, id);
+        for (String variant : deletes(prefix(term), MAX_DISTANCE)) {
+            put(variant.hashCode(), id);
+        }
+    }
+
+    /**
+     * 與 word 的編輯距離在容許範圍內的單字，依距離由近到遠（不含 word 本身）
+     */
+    List<String> lookup(String word) {
+        int allowed = allowedDistance(word);
+        if (allowed == 0 || !isWord(word)) {
+            return List.of();
+        }
+        Set<Integer> seen = new HashSet<>();
+        List<String> matches = new ArrayList<>();
+        int[] distances = new int[MAX_CANDIDATES];
+        for (String variant : deletes(prefix(word), allowed)) {
+            int hash = variant.hashCode();
+            for (int e = slots[hash & (slots.length - 1)]; e >= 0; e = next[e]) {
+                if (hashes[e] != hash || !seen.add(owners[e])) {
+                    continue;
+                }
+                String term = terms.get(owners[e]);
+                int distance = distance(word, term, allowed);
+                if (distance > 0 && distance <= allowed) {
+                    distances[matches.size()] = distance;
+                    matches.add(term);
+                }
+                if (seen.size() >= MAX_CANDIDATES || matches.size() >= MAX_CANDIDATES) {
+                    return byDistance(matches, distances);
+                }
+            }
+        }
+        return byDistance(matches, distances);
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    void clear() {
+        terms.clear();
+        termIds.clear();
+        slots = newSlots(1 << 12);
+        count = 0;
+    }
+
+    // 4~7 個字元容許 1 個錯字，8 個字元以上容許 2 個
+    static int allowedDistance(String word) {
+        if (word.length() < MIN_LENGTH) {
+            return 0;
+        }
+        return word.length() < 8 ? 1 : MAX_DISTANCE;
+    }
+
+    /**
+     * 編輯距離（插入、刪除、替換、相鄰對調各算 1），超過 max 時提早結束並回傳 max + 1
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] before = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] rotate = before;
+            before = previous;
+            previous = current;
+            current = rotate;
+        }
+        return previous[b.length()];
+    }
+
+    private void put(int hash, int owner) {
+        if (count == hashes.length) {
+            hashes = Arrays.copyOf(hashes, count * 2);
+            owners = Arrays.copyOf(owners, count * 2);
+            next = Arrays.copyOf(next, count * 2);
+        }
+        if (count >= slots.length) {
+            rehash(slots.length * 2);
+        }
+        int slot = hash & (slots.length - 1);
+        hashes[count] = hash;
+        owners[count] = owner;
+        next[count] = slots[slot];
+        slots[slot] = count++;
+    }
+
+    private void rehash(int capacity) {
+        slots = newSlots(capacity);
+        for (int e = 0; e < count; e++) {
+            int slot = hashes[e] & (capacity - 1);
+            next[e] = slots[slot];
+            slots[slot] = e;
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+
+    private static List<String> byDistance(List<String> matches, int[] distances) {
+        List<String> sorted = new ArrayList<>(matches.size());
+        for (int d = 1; d <= MAX_DISTANCE; d++) {
+            for (int i = 0; i < matches.size(); i++) {
+                if (distances[i] == d) {
+                    sorted.add(matches.get(i));
+                }
+            }
+        }
+        return sorted;
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    // word 本身與刪掉 1~depth 個字元的所有變形
+    private static Set<String> deletes(String word, int depth) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        List<String> frontier = List.of(word);
+        for (int d = 0; d < depth; d++) {
+            List<String> nextFrontier = new ArrayList<>();
+            for (String value : frontier) {
+                for (int i = 0; i < value.length(); i++) {
+                    String variant = value.substring(0, i) + value.substring(i + 1);
+                    if (variants.add(variant)) {
+                        nextFrontier.add(variant);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        return variants;
+    }
+
+    // 只收英文字母組成的單字（數字、型號不做容錯）
+    private static boolean isWord(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (!Character.isLetter(c) || CjkTokenizer.isCjk(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
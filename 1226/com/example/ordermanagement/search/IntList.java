@@ -0,0 +1,27 @@
+package com.example.ordermanagement.search;
+
+import java.util.Arrays;
+
+/**
+ * 可成長的 int 陣列，作為倒排索引的 posting list（內容保持遞增）
+ */
+class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
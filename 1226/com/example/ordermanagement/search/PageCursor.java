@@ -0,0 +1,110 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+import com.example.ordermanagement.model.ItemSummary;
+
+/**
+ * 不透明的分頁游標，記錄上一頁最後一筆商品的排序鍵
+ *
+ * 下一頁只需「排序鍵大於游標」的商品，不必計算 OFFSET，也不必每頁執行 count(*)。
+ */
+public class PageCursor {
+
+    private static final String VERSION = "v1";
+
+    private final CatalogSort sort;
+    private final BigDecimal price;   // 只有 PRICE 排序使用
+    private final double score;       // 只有 RELEVANCE 排序使用
+    private final int itemId;
+
+    public PageCursor(CatalogSort sort, BigDecimal price, int itemId) {
+        this(sort, price, 0, itemId);
+    }
+
+    public PageCursor(CatalogSort sort, BigDecimal price, double score, int itemId) {
+        this.sort = sort;
+        this.price = price;
+        this.score = score;
+        this.itemId = itemId;
+    }
+
+    // 以本頁最後一筆商品建立下一頁的游標（資料庫查詢沒有相關性分數，RELEVANCE 以 0 分計）
+    public static PageCursor after(CatalogSort sort, ItemSummary summary) {
+        return new PageCursor(sort, sort == CatalogSort.PRICE ? summary.getItemPrice() : null, summary.getItemId());
+    }
+
+    public CatalogSort getSort() {
+        return sort;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    // 與 CatalogSort 相同的排序，無價格視為最小值；RELEVANCE 的分數由索引另外比較，這裡只有同分時的順序
+    public static Comparator<CatalogDocument> comparator(CatalogSort sort) {
+        if (sort == CatalogSort.PRICE) {
+            return Comparator.comparing(CatalogDocument::getItemPrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparingInt(CatalogDocument::getItemId);
+        }
+        return Comparator.comparingInt(CatalogDocument::getItemId).reversed();
+    }
+
+    /**
+     * 商品是否排在游標之後（RELEVANCE 需要分數，由索引另外比較）
+     */
+    public boolean isBefore(CatalogDocument doc) {
+        if (sort == CatalogSort.PRICE) {
+            int byPrice = Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder()).compare(doc.getItemPrice(), price);
+            return byPrice > 0 || (byPrice == 0 && doc.getItemId() > itemId);
+        }
+        return doc.getItemId() < itemId;
+    }
+
+    public String encode() {
+        String key = "";
+        if (sort == CatalogSort.PRICE && price != null) {
+            key = price.toPlainString();
+        } else if (sort == CatalogSort.RELEVANCE) {
+            key = Double.toString(score);
+        }
+        String raw = VERSION + "|" + sort.name() + "|" + key + "|" + itemId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標，格式錯誤或排序方式不符時丟出 IllegalArgumentException
+     */
+    public static PageCursor decode(String token, CatalogSort expectedSort) {
+        PageCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("無效的分頁游標");
+            }
+            CatalogSort sort = CatalogSort.valueOf(parts[1]);
+            BigDecimal price = sort == CatalogSort.PRICE && !parts[2].isEmpty() ? new BigDecimal(parts[2]) : null;
+            double score = sort == CatalogSort.RELEVANCE ? Double.parseDouble(parts[2]) : 0;
+            cursor = new PageCursor(sort, price, score, Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("無效的分頁游標", e);
+        }
+        if (cursor.getSort() != expectedSort) {
+            throw new IllegalArgumentException("分頁游標與排序方式不符");
+        }
+        return cursor;
+    }
+}
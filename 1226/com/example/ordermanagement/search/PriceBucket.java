@@ -0,0 +1,31 @@
+package com.example.ordermanagement.search;
+
+import java.math.BigDecimal;
+
+/**
+ * 價格區間的商品數量，max 為 null 表示沒有上限
+ */
+public class PriceBucket {
+
+    private final BigDecimal min;
+    private final BigDecimal max;
+    private final int count;
+
+    public PriceBucket(BigDecimal min, BigDecimal max, int count) {
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
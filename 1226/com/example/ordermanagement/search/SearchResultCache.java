@@ -0,0 +1,128 @@
+package com.example.ordermanagement.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * /itemSearch/filter 的回應快取（LRU，超過上限時淘汰最久未使用的項目）
+ *
+ * 每筆快取有存活時間；商品新增、修改、刪除時由 CatalogSearchService 呼叫 invalidate，
+ * 只移除可能受該商品影響的快取（見 FilterKey.mayContain）。
+ */
+@Component
+public class SearchResultCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<FilterKey, CachedResponse> entries;
+
+    // 每次失效都遞增；計算期間版本變了就不寫入，避免把過期結果放回快取
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    private static class CachedResponse {
+        private final Map<String, Object> response;
+        private final long expiresAt;
+
+        private CachedResponse(Map<String, Object> response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public SearchResultCache(@Value("${catalog.search.cache.max-entries:500}") int maxEntries,
+            @Value("${catalog.search.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FilterKey, CachedResponse> eldest) {
+                if (size() > SearchResultCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 取得未過期的快取，沒有時回傳 null
+     */
+    public synchronized Map<String, Object> get(FilterKey key) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            expirations++;
+            cached = null;
+        }
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.response;
+    }
+
+    /**
+     * 開始計算前取得版本，寫入時一併傳入
+     */
+    public synchronized long stamp() {
+        return version;
+    }
+
+    public synchronized void put(FilterKey key, Map<String, Object> response, long stamp) {
+        if (stamp != version || maxEntries <= 0) {
+            return;
+        }
+        entries.put(key, new CachedResponse(response, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * 商品變動後移除受影響的快取；before / after 為變動前後的商品（新增時 before 為 null，刪除時 after 為 null）
+     */
+    public synchronized void invalidate(CatalogDocument before, CatalogDocument after) {
+        version++;
+        Iterator<FilterKey> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            FilterKey key = it.next();
+            if (key.mayContain(before) || key.mayContain(after)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * 命中率等統計數字
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlNanos / 1_000_000_000L);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+}
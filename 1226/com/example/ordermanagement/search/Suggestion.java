@@ -0,0 +1,46 @@
+package com.example.ordermanagement.search;
+
+import java.util.Comparator;
+
+/**
+ * 搜尋框的自動完成建議（不可變）
+ */
+public class Suggestion {
+
+    public enum Type {
+        ITEM, BRAND, CATEGORY
+    }
+
+    // 權重高者優先，同權重時較短、再依字典順序
+    static final Comparator<Suggestion> ORDER = Comparator.comparingLong(Suggestion::getWeight).reversed()
+            .thenComparingInt(s -> s.getText().length())
+            .thenComparing(Suggestion::getText);
+
+    private final String text;
+    private final Type type;
+    private final Integer itemId;   // 只有 ITEM 有值
+    private final long weight;
+
+    public Suggestion(String text, Type type, Integer itemId, long weight) {
+        this.text = text;
+        this.type = type;
+        this.itemId = itemId;
+        this.weight = weight;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getItemId() {
+        return itemId;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
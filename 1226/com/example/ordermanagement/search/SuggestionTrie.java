@@ -0,0 +1,245 @@
+package com.example.ordermanagement.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 自動完成用的前綴樹（非執行緒安全，由 CatalogSuggester 加鎖）
+ *
+ * 每個節點保存子樹中權重最高的前 TOP_K 筆建議，查詢只需沿前綴走到節點即可直接回傳，
+ * 與符合的商品數量無關。子節點以排序後的 char 陣列保存，不使用 HashMap 以節省記憶體。
+ */
+class SuggestionTrie {
+
+    static final int TOP_K = 16;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private static class Node {
+        private char[] keys = NO_KEYS;                     // 已排序，與 children 一一對應
+        private Node[] children = NO_CHILDREN;
+        private Suggestion[] terminals = NO_SUGGESTIONS;   // 在此節點結束的建議
+        private Suggestion[] top = NO_SUGGESTIONS;         // 子樹中最前面的 TOP_K 筆，依 Suggestion.ORDER 排序
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            Node node = new Node();
+            keys = insert(keys, at, c);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = node;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+            return node;
+        }
+
+        private void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) {
+                return;
+            }
+            char[] k = new char[keys.length - 1];
+            Node[] n = new Node[children.length - 1];
+            System.arraycopy(keys, 0, k, 0, i);
+            System.arraycopy(keys, i + 1, k, i, keys.length - i - 1);
+            System.arraycopy(children, 0, n, 0, i);
+            System.arraycopy(children, i + 1, n, i, children.length - i - 1);
+            keys = k;
+            children = n;
+        }
+
+        private boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+    }
+
+    private Node root = new Node();
+
+    /**
+     * 以 key 為路徑加入建議，沿路節點若名次足夠就直接放入前 K 名
+     */
+    void add(String key, Suggestion suggestion) {
+        Node node = root;
+        offer(node, suggestion);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            offer(node, suggestion);
+        }
+        node.terminals = append(node.terminals, suggestion);
+    }
+
+    /**
+     * 移除建議（所有 key 一次處理，每個節點最多重新計算一次）
+     */
+    void remove(Collection<String> keys, Suggestion suggestion) {
+        replace(keys, suggestion, null);
+    }
+
+    /**
+     * 以 next 取代 old，兩者的 key 必須相同；next 為 null 表示移除
+     *
+     * 名次上升（例如銷售數量增加）時直接在前 K 名中換掉並重新排序；
+     * 名次下降或移除時，原本在前 K 名內的節點才需要由下往上重新計算。
+     */
+    void replace(Collection<String> keys, Suggestion old, Suggestion next) {
+        Map<Node, Integer> dirty = new IdentityHashMap<>();   // 需要重新計算的節點與深度
+        Map<Node, Boolean> visited = new IdentityHashMap<>();
+        for (String key : keys) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            int depth = 0;
+            while (depth < key.length() && path[depth] != null) {
+                path[depth + 1] = path[depth].child(key.charAt(depth));
+                depth++;
+            }
+            if (path[depth] == null) {
+                continue;
+            }
+            for (int i = 0; i <= depth; i++) {
+                if (visited.put(path[i], Boolean.TRUE) == null) {
+                    update(path[i], i, old, next, dirty);
+                }
+            }
+            Node last = path[depth];
+            last.terminals = without(last.terminals, old);
+            if (next != null) {
+                last.terminals = append(last.terminals, next);
+            }
+            // 移除後沒有任何建議的節點從父節點拿掉
+            for (int i = depth; i > 0 && path[i].isEmpty(); i--) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            }
+        }
+
+        List<Map.Entry<Node, Integer>> ordered = new ArrayList<>(dirty.entrySet());
+        ordered.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        for (Map.Entry<Node, Integer> entry : ordered) {
+            recompute(entry.getKey());
+        }
+    }
+
+    private static void update(Node node, int depth, Suggestion old, Suggestion next, Map<Node, Integer> dirty) {
+        if (!contains(node.top, old)) {
+            if (next != null) {
+                offer(node, next);
+            }
+            return;
+        }
+        if (next != null && Suggestion.ORDER.compare(next, old) <= 0) {
+            Suggestion[] top = node.top.clone();
+            for (int i = 0; i < top.length; i++) {
+                if (top[i] == old) {
+                    top[i] = next;
+                }
+            }
+            Arrays.sort(top, Suggestion.ORDER);
+            node.top = top;
+            return;
+        }
+        dirty.put(node, depth);
+    }
+
+    /**
+     * 前綴對應的前 K 筆建議（依權重排序）
+     */
+    List<Suggestion> get(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(node.top);
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    private static void offer(Node node, Suggestion suggestion) {
+        Suggestion[] top = node.top;
+        if (contains(top, suggestion)) {
+            return;
+        }
+        if (top.length == TOP_K && Suggestion.ORDER.compare(suggestion, top[TOP_K - 1]) >= 0) {
+            return;
+        }
+        int at = Arrays.binarySearch(top, suggestion, Suggestion.ORDER);
+        at = at >= 0 ? at : -at - 1;
+        Suggestion[] next = Arrays.copyOf(top, Math.min(top.length + 1, TOP_K));
+        System.arraycopy(top, at, next, at + 1, next.length - at - 1);
+        next[at] = suggestion;
+        node.top = next;
+    }
+
+    // 由此節點的建議與各子節點的前 K 名合併出新的前 K 名
+    private static void recompute(Node node) {
+        Map<Suggestion, Boolean> candidates = new IdentityHashMap<>();
+        for (Suggestion s : node.terminals) {
+            candidates.put(s, Boolean.TRUE);
+        }
+        for (Node child : node.children) {
+            for (Suggestion s : child.top) {
+                candidates.put(s, Boolean.TRUE);
+            }
+        }
+        List<Suggestion> sorted = new ArrayList<>(candidates.keySet());
+        sorted.sort(Suggestion.ORDER);
+        node.top = sorted.subList(0, Math.min(TOP_K, sorted.size())).toArray(NO_SUGGESTIONS);
+    }
+
+    private static boolean contains(Suggestion[] values, Suggestion suggestion) {
+        for (Suggestion s : values) {
+            if (s == suggestion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Suggestion[] append(Suggestion[] values, Suggestion suggestion) {
+        if (contains(values, suggestion)) {
+            return values;
+        }
+        Suggestion[] next = Arrays.copyOf(values, values.length + 1);
+        next[values.length] = suggestion;
+        return next;
+    }
+
+    private static Suggestion[] without(Suggestion[] values, Suggestion suggestion) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == suggestion) {
+                Suggestion[] next = new Suggestion[values.length - 1];
+                System.arraycopy(values, 0, next, 0, i);
+                System.arraycopy(values, i + 1, next, i, values.length - i - 1);
+                return next;
+            }
+        }
+        return values;
+    }
+
+    private static char[] insert(char[] values, int at, char c) {
+        char[] next = new char[values.length + 1];
+        System.arraycopy(values, 0, next, 0, at);
+        next[at] = c;
+        System.arraycopy(values, at, next, at + 1, values.length - at);
+        return next;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.ordermanagement.model.Brand;
+import com.example.ordermanagement.model.BrandName;
 import com.example.ordermanagement.model.BrandRepository;
 
 @Service
@@ -18,6 +19,11 @@ public class BrandService {
         return brandRepo.findAll();
     }
 
+    /** 只有 id 與名稱，不讀取品牌圖片 */
+    public List<BrandName> findAllNames() {
+        return brandRepo.findAllNames();
+    }
+
 
 
 }
\ No newline at end of file
@@ -1,241 +1,302 @@
 package com.example.ordermanagement.service;
 
 import com.example.ordermanagement.model.*;
+import com.example.ordermanagement.cart.CartLine;
+import com.example.ordermanagement.cart.CartState;
+import com.example.ordermanagement.cart.CartStore;
 import com.example.ordermanagement.dto.CartDto;
 import com.example.ordermanagement.dto.CartItemDto;
+import com.example.ordermanagement.dto.CartOperation;
 import com.example.ordermanagement.dto.CheckoutRequest;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.PhotoUrls;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+// 購物車的讀取與修改都在 CartStore（記憶體）中進行，只有庫存保留會寫資料庫；
+// 購物車項目以商品選項 ID 識別（每個選項在購物車中只有一筆）
 @Service
 public class CartService {
 
+    private static final int MAX_OPERATIONS = 100; // 單次批次操作的上限
+
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Autowired
     private ItemOptionRepositry itemOptionRepository;
 
     @Autowired
-    private ShippingMethodService shippingMethodService;
+    private ItemRepository itemRepository;
 
     @Autowired
-    private ShippingInfoService shippingInfoService;
+    private UserInfoRepository userInfoRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
-
-    @Transactional
-    public Cart getOrCreateCart(UserInfo buyer) {
-        return cartRepository.findByBuyer(buyer)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setBuyer(buyer);
-                    newCart.setCartTotal(BigDecimal.ZERO);
-                    return cartRepository.save(newCart);
-                });
-    }
+    private OrderService orderService;
 
-    @Transactional
-    public Cart addItemToCart(UserInfo buyer, int itemSizeId, int quantity) {
-        Cart cart = getOrCreateCart(buyer);
-
-        Optional<ItemOption> itemSizeOpt = itemOptionRepository.findById(itemSizeId);
-        if (itemSizeOpt.isEmpty()) {
-            throw new IllegalArgumentException("無效的商品選項ID");
-        }
-        ItemOption itemSize = itemSizeOpt.get();
+    @Autowired
+    private InventoryService inventoryService;
 
-        if (itemSize.getQuantity() < quantity) {
-            throw new IllegalArgumentException("商品庫存不足！");
-        }
+    @Autowired
+    private PhotoUrls photoUrls;
 
-        CartItem existingItem = cart.getCartItems().stream()
-                .filter(item -> item.getItemSize().getId() == itemSizeId)
-                .findFirst()
-                .orElse(null);
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-        if (existingItem != null) {
-            existingItem.setItemQuantity(existingItem.getItemQuantity() + quantity);
-        } else {
-            CartItem cartItem = new CartItem();
-            cartItem.setCart(cart);
-            cartItem.setItem(itemSize.getItem());
-            cartItem.setItemSize(itemSize);
-            cartItem.setItemQuantity(quantity);
-            cartItem.setItemPrice(itemSize.getOptionPrice());
-            cartItem.setSeller(itemSize.getItem().getUserInfo());
-            cart.addCartItem(cartItem);
+    public CartDto addItemToCart(int buyerId, int optionId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("數量必須大於 0！");
         }
-
-        itemSize.setQuantity(itemSize.getQuantity() - quantity);
-        itemOptionRepository.save(itemSize);
-
-        cart.recalculateCartTotal();
-        return cartRepository.save(cart);
+        List<Object[]> rows = itemOptionRepository.findCartLinesByIds(List.of(optionId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("無效的商品選項ID");
+        }
+        Object[] row = rows.get(0);
+
+        return cartStore.update(buyerId, cart -> {
+            CartLine existing = cart.line(optionId);
+            CartLine line = existing != null
+                    ? existing.withQuantity(existing.getQuantity() + quantity)
+                    : new CartLine(optionId, (Integer) row[1], (Integer) row[2], (String) row[3], (String) row[4],
+                            (BigDecimal) row[5], (BigDecimal) row[5], quantity);
+
+            // 先保留庫存再修改購物車，不足時購物車不變。保留期限從這次變動重新計算
+            if (!inventoryService.hold(buyerId, optionId, line.getQuantity())) {
+                throw new IllegalArgumentException("商品庫存不足！");
+            }
+            cart.put(line);
+            return convertToCartDto(cart.lines());
+        });
     }
 
-    @Transactional
-    public CartDto removeItemFromCart(UserInfo buyer, int cartItemId) {
-        Cart cart = getOrCreateCart(buyer);
-
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getCartItemId() == cartItemId)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("購物車中未找到該商品項目"));
-
-        // 恢復商品庫存
-        cartItem.getItemSize().setQuantity(cartItem.getItemSize().getQuantity() + cartItem.getItemQuantity());
-        itemOptionRepository.save(cartItem.getItemSize());
-
-        // 從購物車中移除
-        cart.removeCartItem(cartItem);
-        cartRepository.save(cart);
-
-        return convertToCartDto(cart);
+    public CartDto removeItemFromCart(int buyerId, int cartItemId) {
+        return cartStore.update(buyerId, cart -> {
+            requireLine(cart, cartItemId);
+            // 取消保留的庫存
+            inventoryService.hold(buyerId, cartItemId, 0);
+            cart.remove(cartItemId);
+            return convertToCartDto(cart.lines());
+        });
     }
 
-    @Transactional
-    public CartDto updateItemQuantity(UserInfo buyer, int cartItemId, int newQuantity) {
-        Cart cart = getOrCreateCart(buyer);
+    public CartDto updateItemQuantity(int buyerId, int cartItemId, int newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("數量必須大於 0！");
+        }
+        return cartStore.update(buyerId, cart -> {
+            CartLine line = requireLine(cart, cartItemId);
 
-        // 根據 cartItemId 查找購物車項目
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getCartItemId() == cartItemId)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("購物車中未找到該商品項目"));
+            // 保留量改為新數量（增加時保留差額、減少時歸還差額）；庫存不足時購物車不變
+            if (!inventoryService.hold(buyerId, cartItemId, newQuantity)) {
+                throw new IllegalArgumentException("庫存不足，無法更新商品數量！");
+            }
+            cart.put(line.withQuantity(newQuantity));
+            return convertToCartDto(cart.lines());
+        });
+    }
 
-        int deltaQuantity = newQuantity - cartItem.getItemQuantity();
-        if (deltaQuantity > 0 && cartItem.getItemSize().getQuantity() < deltaQuantity) {
-            throw new IllegalArgumentException("庫存不足，無法更新商品數量！");
+    /**
+     * 依序套用多個操作後一次保留庫存（InventoryService.holdAll），任一選項庫存不足或操作無效時購物車與庫存都不變
+     */
+    public CartDto applyOperations(int buyerId, List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("沒有任何操作");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("單次最多 " + MAX_OPERATIONS + " 個操作");
+        }
+        Set<Integer> optionIds = new LinkedHashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation.getOptionId() == null) {
+                throw new IllegalArgumentException("缺少商品選項ID");
+            }
+            optionIds.add(operation.getOptionId());
+        }
+        // 新加入的選項需要的商品資料，一次查出
+        Map<Integer, Object[]> options = new HashMap<>();
+        for (Object[] row : itemOptionRepository.findCartLinesByIds(optionIds)) {
+            options.put((Integer) row[0], row);
         }
 
-        cartItem.getItemSize().setQuantity(cartItem.getItemSize().getQuantity() - deltaQuantity);
-        cartItem.setItemQuantity(newQuantity);
+        return cartStore.update(buyerId, cart -> {
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            cart.lines().forEach(line -> quantities.put(line.getOptionId(), line.getQuantity()));
+            for (CartOperation operation : operations) {
+                apply(quantities, operation, options);
+            }
 
-        cart.recalculateCartTotal();
-        itemOptionRepository.save(cartItem.getItemSize());
-        cartRepository.save(cart);
+            // 只保留數量有變動的選項（移除的為 0）
+            Map<Integer, Integer> changes = new LinkedHashMap<>();
+            for (CartLine line : cart.lines()) {
+                int quantity = quantities.getOrDefault(line.getOptionId(), 0);
+                if (quantity != line.getQuantity()) {
+                    changes.put(line.getOptionId(), quantity);
+                }
+            }
+            quantities.forEach((optionId, quantity) -> {
+                if (cart.line(optionId) == null) {
+                    changes.put(optionId, quantity);
+                }
+            });
 
-        return convertToCartDto(cart);
-    }
+            List<Integer> insufficient = inventoryService.holdAll(buyerId, changes);
+            if (!insufficient.isEmpty()) {
+                throw new IllegalArgumentException("商品庫存不足：" + insufficient.stream()
+                        .map(optionId -> (String) options.get(optionId)[3] + " " + options.get(optionId)[4])
+                        .collect(Collectors.joining("、")));
+            }
 
-    @Transactional
-    public CartDto clearCart(UserInfo buyer) {
-        Cart cart = getOrCreateCart(buyer);
-        cart.getCartItems().forEach(item -> {
-            item.getItemSize().setQuantity(item.getItemSize().getQuantity() + item.getItemQuantity());
-            itemOptionRepository.save(item.getItemSize());
+            changes.forEach((optionId, quantity) -> {
+                CartLine line = cart.line(optionId);
+                if (quantity == 0) {
+                    cart.remove(optionId);
+                } else if (line != null) {
+                    cart.put(line.withQuantity(quantity));
+                } else {
+                    Object[] row = options.get(optionId);
+                    cart.put(new CartLine(optionId, (Integer) row[1], (Integer) row[2], (String) row[3],
+                            (String) row[4], (BigDecimal) row[5], (BigDecimal) row[5], quantity));
+                }
+            });
+            return convertToCartDto(cart.lines());
         });
-        cart.getCartItems().clear();
-        cart.setCartTotal(BigDecimal.ZERO);
-        cartRepository.save(cart);
-
-        return convertToCartDto(cart);
     }
 
-    @Transactional
-    public Order checkoutCart(UserInfo buyer, CheckoutRequest checkoutRequest) {
-        Cart cart = getCartByBuyerId(buyer.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("購物車不存在"));
-
-        if (cart.getCartItems().isEmpty()) {
-            throw new IllegalStateException("購物車為空，無法結帳");
-        }
-
-        // 構建 ShippingInfo
-        ShippingInfo shippingInfo = new ShippingInfo();
-        shippingInfo.setShippingInfoRecipient(checkoutRequest.getShippingInfoRecipient());
-        shippingInfo.setShippingInfoAddress(checkoutRequest.getShippingInfoAddress());
-        shippingInfo.setShippingInfoStatus("Pending");
-
-        // 設置物流方式
-        ShippingMethod shippingMethod = shippingMethodService.getMethodById(checkoutRequest.getShippingMethodId())
-                .orElseThrow(() -> new IllegalArgumentException("無效的物流方式"));
-        shippingInfo.setShippingMethod(shippingMethod);
-
-        // 創建訂單
-        Order order = new Order();
-        order.setBuyer(buyer);
-        order.setOrderDate(LocalDateTime.now());
-        order.setOrderStatus("Pending");
-        order.setPaymentStatus("Unpaid");
-        order.setShippingStatus("Not Shipped");
-        order.setOrderTotal(cart.getCartTotal());
-
-        // 關聯 ShippingInfo 到訂單
-        order.setShippingInfo(shippingInfo);
-
-        // 設置訂單項目
-        cart.getCartItems().forEach(cartItem -> {
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setItem(cartItem.getItem());
-            orderItem.setItemSize(cartItem.getItemSize());
-            orderItem.setItemPrice(cartItem.getItemPrice());
-            orderItem.setItemQuantity(cartItem.getItemQuantity());
-            orderItem.setSeller(cartItem.getSeller());
-            order.addOrderItem(orderItem);
+    public CartDto clearCart(int buyerId) {
+        return cartStore.update(buyerId, cart -> {
+            // 交易提交後才清空購物車，提交失敗時購物車不變（寫回執行緒也不會先寫進空的購物車）
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    cart.lines().forEach(line -> inventoryService.hold(buyerId, line.getOptionId(), 0)));
+            cart.clear();
+            return convertToCartDto(cart.lines());
         });
+    }
 
-        // 清空購物車
-        clearCart(buyer);
+    /**
+     * 結帳：保留的庫存轉為實際扣除（保留已逾時被釋放的會重新保留），建立訂單後清空購物車
+     */
+    public Order checkout(int buyerId, CheckoutRequest checkoutRequest) {
+        return cartStore.update(buyerId, cart -> {
+            if (cart.isEmpty()) {
+                throw new IllegalStateException("購物車為空，無法結帳");
+            }
+            // 扣除庫存與建立訂單在同一個交易中；提交成功後才清空購物車
+            Order order = new TransactionTemplate(transactionManager).execute(status -> {
+                for (CartLine line : cart.lines()) {
+                    if (!inventoryService.commit(buyerId, line.getOptionId(), line.getQuantity())) {
+                        throw new IllegalArgumentException("商品庫存不足：" + line.getItemName());
+                    }
+                }
+                return orderService.createOrderFromCart(toCart(cart), checkoutRequest);
+            });
+            cart.clear();
+            return order;
+        });
+    }
 
-        // 保存訂單（同時保存 ShippingInfo 和 OrderItem）
-        return orderRepository.save(order);
+    public CartDto getCartDto(int buyerId) {
+        return convertToCartDto(cartStore.get(buyerId));
     }
 
-    public CartDto convertToCartDto(Cart cart) {
+    public CartDto convertToCartDto(List<CartLine> lines) {
         CartDto cartDto = new CartDto();
+        Map<Integer, String> photos = photoUrls.primaryItemPhotos(lines.stream()
+                .map(CartLine::getItemId)
+                .collect(Collectors.toSet()), ImageUploadPipeline.SMALL);
 
-        List<CartItemDto> cartItemDtos = cart.getCartItems().stream().map(cartItem -> {
+        List<CartItemDto> cartItemDtos = lines.stream().map(line -> {
             CartItemDto itemDto = new CartItemDto();
-            itemDto.setCartItemId(cartItem.getCartItemId());
-            itemDto.setItemName(cartItem.getItem().getItemName());
-            itemDto.setItemPrice(cartItem.getItemPrice());
-            itemDto.setItemQuantity(cartItem.getItemQuantity());
+            itemDto.setCartItemId((long) line.getOptionId());
+            itemDto.setItemName(line.getItemName());
+            itemDto.setItemPrice(line.getItemPrice());
+            itemDto.setItemQuantity(line.getQuantity());
 
             // 添加尺寸名稱和價格
-            if (cartItem.getItemSize() != null) {
-                itemDto.setItemSizeName(cartItem.getItemSize().getOptionName());
-                itemDto.setItemSizePrice(cartItem.getItemSize().getOptionPrice());
-            }
+            itemDto.setItemSizeName(line.getOptionName());
+            itemDto.setItemSizePrice(line.getOptionPrice());
 
-            if (cartItem.getItem().getItemPhoto() != null && !cartItem.getItem().getItemPhoto().isEmpty()) {
-                byte[] photoData = cartItem.getItem().getItemPhoto().get(0).getPhotoFile();
-                if (photoData != null) {
-                    String base64Image = Base64.getEncoder().encodeToString(photoData);
-                    itemDto.setImageUrl("data:image/jpeg;base64," + base64Image);
-                }
-            } else {
-                itemDto.setImageUrl("/images/default-placeholder.png");
-            }
+            // 圖片回傳網址，不讀取圖片內容
+            itemDto.setImageUrl(photos.getOrDefault(line.getItemId(), PhotoUrls.PLACEHOLDER));
 
             return itemDto;
         }).collect(Collectors.toList());
 
         cartDto.setCartItems(cartItemDtos);
-        cartDto.setCartTotal(cart.getCartTotal());
+        cartDto.setCartTotal(CartState.total(lines));
 
         return cartDto;
     }
 
-    @Transactional(readOnly = true)
-    public CartDto getCartDto(UserInfo buyer) {
-        Cart cart = getOrCreateCart(buyer);
-        return convertToCartDto(cart);
+    // 套用一個操作到 選項 ID → 數量（數量為 0 的選項會被移除）
+    private void apply(Map<Integer, Integer> quantities, CartOperation operation, Map<Integer, Object[]> options) {
+        int optionId = operation.getOptionId();
+        Integer quantity = operation.getQuantity();
+        String op = operation.getOp() != null ? operation.getOp() : "";
+        switch (op) {
+            case "add":
+                if (quantity == null || quantity <= 0) {
+                    throw new IllegalArgumentException("數量必須大於 0！");
+                }
+                if (!options.containsKey(optionId)) {
+                    throw new IllegalArgumentException("無效的商品選項ID: " + optionId);
+                }
+                quantities.merge(optionId, quantity, Integer::sum);
+                break;
+            case "set":
+                if (quantity == null || quantity < 0) {
+                    throw new IllegalArgumentException("數量不可為負數");
+                }
+                if (quantity == 0) {
+                    quantities.remove(optionId);
+                } else if (!options.containsKey(optionId)) {
+                    throw new IllegalArgumentException("無效的商品選項ID: " + optionId);
+                } else {
+                    quantities.put(optionId, quantity);
+                }
+                break;
+            case "remove":
+                if (quantities.remove(optionId) == null) {
+                    throw new IllegalArgumentException("購物車中未找到該商品項目");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("不支援的操作: " + operation.getOp());
+        }
+    }
+
+    private CartLine requireLine(CartState cart, int cartItemId) {
+        CartLine line = cart.line(cartItemId);
+        if (line == null) {
+            throw new IllegalArgumentException("購物車中未找到該商品項目");
+        }
+        return line;
     }
 
-    @Transactional(readOnly = true)
-    public Optional<Cart> getCartByBuyerId(Integer buyerId) {
-        return cartRepository.findByBuyerUserId(buyerId);
+    // 建立訂單用的購物車（不存檔），商品、選項與賣家只取參照，不查資料庫
+    private Cart toCart(CartState state) {
+        Cart cart = new Cart();
+        cart.setBuyer(userInfoRepository.getReferenceById(state.getBuyerId()));
+        for (CartLine line : state.lines()) {
+            CartItem cartItem = new CartItem();
+            cartItem.setItem(itemRepository.getReferenceById(line.getItemId()));
+            cartItem.setItemSize(itemOptionRepository.getReferenceById(line.getOptionId()));
+            cartItem.setSeller(line.getSellerId() != null ? userInfoRepository.getReferenceById(line.getSellerId()) : null);
+            cartItem.setItemPrice(line.getItemPrice());
+            cartItem.setItemQuantity(line.getQuantity());
+            cart.addCartItem(cartItem);
+        }
+        return cart;
     }
 }
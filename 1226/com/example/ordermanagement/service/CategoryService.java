@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import com.example.ordermanagement.model.Item;
 import com.example.ordermanagement.model.ItemRepository;
 import com.example.ordermanagement.model.Category;
+import com.example.ordermanagement.model.CategoryName;
 import com.example.ordermanagement.model.CategoryRepository;
 
 @Service
@@ -22,6 +23,11 @@ public class CategoryService {
         return categoryRepo.findAll();
     }
 
+    /** 只有 id 與名稱，不讀取分類圖片 */
+    public List<CategoryName> findAllNames() {
+        return categoryRepo.findAllNames();
+    }
+
     public Category addCategory(Category category) {
     	return categoryRepo.save(category);
     }
@@ -0,0 +1,298 @@
+package com.example.ordermanagement.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import com.example.ordermanagement.flashsale.FlashSaleStock;
+import com.example.ordermanagement.model.ItemOptionRepositry;
+import com.example.ordermanagement.model.StockReservation;
+import com.example.ordermanagement.model.StockReservationRepository;
+
+/**
+ * 商品選項庫存的保留、結帳扣除與釋放
+ *
+ * 加入購物車只保留庫存（ItemOption.reservedQuantity），並記錄有期限的 StockReservation；
+ * 結帳時保留轉為實際扣除，逾時未結帳由 ReservationSweeper 釋放，放棄的購物車不會永久佔住庫存。
+ * 每次庫存變動都是一句條件式 UPDATE（可購買數量足夠才更新），由資料庫保證不會超賣，
+ * 不必先讀出 ItemOption 再寫回；鎖定的只有該買家自己的保留列。
+ * 只有可購買數量歸零或由零恢復時才更新商品摘要的庫存旗標。
+ * 開啟搶購模式的選項改由 FlashSaleStock 在記憶體中決定並批次寫回，保留列的處理不變。
+ *
+ * 在呼叫端的交易中執行，選項列鎖會持有到交易結束；呼叫端應在交易的最後才呼叫。
+ */
+@Service
+public class InventoryService {
+
+    // holdAll 以 JDBC batch 一次送出多個選項的條件式 UPDATE，條件與 ItemOptionRepositry 的 reserveQuantity / releaseQuantity 相同
+    private static final String RESERVE = "UPDATE ItemOption SET reservedQuantity = reservedQuantity + ?"
+            + " WHERE id = ? AND quantity - reservedQuantity >= ?";
+    private static final String RELEASE = "UPDATE ItemOption SET reservedQuantity = reservedQuantity - ?"
+            + " WHERE id = ? AND reservedQuantity >= ?";
+
+    @Autowired
+    private ItemOptionRepositry itemOptionRepo;
+
+    @Autowired
+    private StockReservationRepository reservationRepo;
+
+    @Autowired
+    private ReservationExpiryQueue expiryQueue;
+
+    @Autowired
+    private ItemSummaryService itemSummaryService;
+
+    @Autowired
+    private FlashSaleStock flashSaleStock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stock.reservation.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    /**
+     * 把買家在該選項的保留量設為 quantity（0 表示取消）並重新計算到期時間；
+     * 已逾時被釋放的會重新保留。可購買數量不足時不變動並回傳 false
+     */
+    @Transactional
+    public boolean hold(int buyerId, int optionId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("數量不可為負數");
+        }
+        StockReservation reservation = reservationRepo.findByBuyerIdAndOptionId(buyerId, optionId).orElse(null);
+        int delta = quantity - (reservation != null ? reservation.getQuantity() : 0);
+        if (delta > 0 && !reserve(optionId, delta)) {
+            return false;
+        }
+        if (delta < 0) {
+            release(optionId, -delta);
+        }
+
+        if (quantity == 0) {
+            if (reservation != null) {
+                reservationRepo.delete(reservation);
+                expiryQueue.cancel(reservation.getId());
+            }
+        } else {
+            if (reservation == null) {
+                reservation = new StockReservation();
+                reservation.setBuyerId(buyerId);
+                reservation.setOptionId(optionId);
+            }
+            reservation.setQuantity(quantity);
+            reservation.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes));
+            reservation = reservationRepo.save(reservation);
+            expiryQueue.schedule(reservation.getId(), reservation.getExpiresAt());
+        }
+        refreshStockIfCrossedZero(optionId, delta);
+        return true;
+    }
+
+    /**
+     * 一次設定買家在多個選項的保留量（選項 ID → 數量，0 表示取消），與多次 hold 的結果相同，
+     * 但保留列以一次查詢鎖定、選項的增減各以一個 JDBC batch 送出。
+     * 回傳可購買數量不足的選項 ID；有不足時整個交易回滾，所有選項都不變動
+     */
+    @Transactional
+    public List<Integer> holdAll(int buyerId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        for (int quantity : quantities.values()) {
+            if (quantity < 0) {
+                throw new IllegalArgumentException("數量不可為負數");
+            }
+        }
+        Map<Integer, StockReservation> reservations = new HashMap<>();
+        for (StockReservation reservation : reservationRepo.findByBuyerIdAndOptionIdIn(buyerId, quantities.keySet())) {
+            reservations.put(reservation.getOptionId(), reservation);
+        }
+
+        // 依選項 ID 排序送出，同時修改多個選項的交易以相同順序鎖定，避免互相等待
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        quantities.forEach((optionId, quantity) -> {
+            StockReservation reservation = reservations.get(optionId);
+            int delta = quantity - (reservation != null ? reservation.getQuantity() : 0);
+            if (delta != 0) {
+                deltas.put(optionId, delta);
+            }
+        });
+
+        List<Integer> insufficient = new ArrayList<>();
+        List<Object[]> reserves = new ArrayList<>();
+        List<Integer> reserveIds = new ArrayList<>();
+        List<Object[]> releases = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+            int optionId = entry.getKey();
+            int delta = entry.getValue();
+            if (delta > 0) {
+                Boolean accepted = flashSaleStock.tryReserve(optionId, delta);
+                if (accepted == null) {
+                    reserves.add(new Object[] { delta, optionId, delta });
+                    reserveIds.add(optionId);
+                } else if (!accepted) {
+                    insufficient.add(optionId);
+                }
+            } else if (!flashSaleStock.release(optionId, -delta)) {
+                releases.add(new Object[] { -delta, optionId, -delta });
+            }
+        }
+        if (!reserves.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(RESERVE, reserves);
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    insufficient.add(reserveIds.get(i));
+                }
+            }
+        }
+        if (!insufficient.isEmpty()) {
+            // 已保留的部分一併回滾（搶購模式的記憶體計數在回滾後歸還）
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return insufficient;
+        }
+        if (!releases.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE, releases);
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservation> cancelled = new ArrayList<>();
+        List<StockReservation> held = new ArrayList<>();
+        quantities.forEach((optionId, quantity) -> {
+            StockReservation reservation = reservations.get(optionId);
+            if (quantity == 0) {
+                if (reservation != null) {
+                    cancelled.add(reservation);
+                }
+                return;
+            }
+            if (reservation == null) {
+                reservation = new StockReservation();
+                reservation.setBuyerId(buyerId);
+                reservation.setOptionId(optionId);
+            }
+            reservation.setQuantity(quantity);
+            reservation.setExpiresAt(expiresAt);
+            held.add(reservation);
+        });
+        if (!cancelled.isEmpty()) {
+            reservationRepo.deleteAllInBatch(cancelled);
+            cancelled.forEach(reservation -> expiryQueue.cancel(reservation.getId()));
+        }
+        for (StockReservation reservation : reservationRepo.saveAll(held)) {
+            expiryQueue.schedule(reservation.getId(), reservation.getExpiresAt());
+        }
+        refreshStockIfCrossedZero(deltas);
+        return List.of();
+    }
+
+    /**
+     * 結帳：確保保留量為 quantity（逾時的重新保留）後轉為實際扣除庫存；可購買數量不足時回傳 false
+     */
+    @Transactional
+    public boolean commit(int buyerId, int optionId, int quantity) {
+        if (!hold(buyerId, optionId, quantity)) {
+            return false;
+        }
+        if (quantity > 0) {
+            if (!flashSaleStock.commit(optionId, quantity)) {
+                itemOptionRepo.commitQuantity(optionId, quantity);
+            }
+            reservationRepo.findByBuyerIdAndOptionId(buyerId, optionId).ifPresent(reservation -> {
+                reservationRepo.delete(reservation);
+                expiryQueue.cancel(reservation.getId());
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 釋放已到期的保留（期間被延長的略過），回傳釋放的筆數
+     */
+    @Transactional
+    public int expire(Collection<Long> reservationIds) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        // 與 holdAll 相同依選項 ID 的順序修改庫存，和批次保留同時執行時不會互相等待
+        List<StockReservation> reservations = new ArrayList<>(reservationRepo.findAllByIdForUpdate(reservationIds));
+        reservations.sort(Comparator.comparingInt(StockReservation::getOptionId));
+        for (StockReservation reservation : reservations) {
+            if (reservation.getExpiresAt().isAfter(now)) {
+                continue;
+            }
+            release(reservation.getOptionId(), reservation.getQuantity());
+            reservationRepo.delete(reservation);
+            refreshStockIfCrossedZero(reservation.getOptionId(), -reservation.getQuantity());
+            released++;
+        }
+        return released;
+    }
+
+    private boolean reserve(int optionId, int quantity) {
+        Boolean accepted = flashSaleStock.tryReserve(optionId, quantity);
+        return accepted != null ? accepted : itemOptionRepo.reserveQuantity(optionId, quantity) > 0;
+    }
+
+    private void release(int optionId, int quantity) {
+        if (!flashSaleStock.release(optionId, quantity)) {
+            itemOptionRepo.releaseQuantity(optionId, quantity);
+        }
+    }
+
+    // 搶購模式由 FlashSaleStock 寫回後更新；
+    // 保留後可購買數量歸零、或釋放後由零恢復時，商品摘要的庫存旗標才可能改變
+    private void refreshStockIfCrossedZero(int optionId, int delta) {
+        if (delta == 0 || flashSaleStock.isActive(optionId)) {
+            return;
+        }
+        Integer available = itemOptionRepo.findAvailableById(optionId);
+        if (available == null) {
+            return;
+        }
+        if (crossedZero(available, delta)) {
+            Integer itemId = itemOptionRepo.findItemIdById(optionId);
+            if (itemId != null) {
+                itemSummaryService.refreshStock(itemId);
+            }
+        }
+    }
+
+    // holdAll 用：以一次查詢取得可購買數量，只更新跨過零的商品
+    private void refreshStockIfCrossedZero(Map<Integer, Integer> deltas) {
+        List<Integer> optionIds = new ArrayList<>();
+        deltas.keySet().forEach(optionId -> {
+            if (!flashSaleStock.isActive(optionId)) {
+                optionIds.add(optionId);
+            }
+        });
+        if (optionIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> itemIds = new HashSet<>();
+        for (Object[] row : itemOptionRepo.findAvailableByIds(optionIds)) {
+            int delta = deltas.get((Integer) row[0]);
+            if (crossedZero(((Number) row[1]).intValue(), delta)) {
+                itemIds.add((Integer) row[2]);
+            }
+        }
+        itemIds.forEach(itemSummaryService::refreshStock);
+    }
+
+    private static boolean crossedZero(int available, int delta) {
+        return delta > 0 ? available <= 0 : available > 0 && available <= -delta;
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.ordermanagement.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageStore;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.ItemPhotoHashes;
+import com.example.ordermanagement.image.PhotoUrls;
+import com.example.ordermanagement.image.UploadSessions;
 import com.example.ordermanagement.model.Item;
 import com.example.ordermanagement.model.ItemOption;
 import com.example.ordermanagement.model.ItemOptionRepositry;
@@ -19,6 +30,7 @@ import com.example.ordermanagement.model.ItemPhotoRepositry;
 import com.example.ordermanagement.model.ItemRepository;
 import com.example.ordermanagement.model.ItemTransportation;
 import com.example.ordermanagement.model.TransportationRepository;
+import com.example.ordermanagement.search.CatalogSearchService;
 
 import jakarta.transaction.Transactional;
 
@@ -48,6 +60,24 @@ public class ItemService {
 	@Autowired
 	private TransportationRepository transportationRepo;
 
+	@Autowired
+	private CatalogSearchService catalogSearchService;
+
+	@Autowired
+	private ItemSummaryService itemSummaryService;
+
+	@Autowired
+	private ImageUploadPipeline imageUploadPipeline;
+
+	@Autowired
+	private ImageResponses imageResponses;
+
+	@Autowired
+	private UploadSessions uploadSessions;
+
+	@Autowired
+	private ItemPhotoHashes itemPhotoHashes;
+
 	public List<Item> findAllItem() {
 		return itemRepo.findAll();
 	}
@@ -62,10 +92,22 @@ public class ItemService {
 	}
 
 	public Item addItem(Item item) {
-		return itemRepo.save(item);
+		Item saved = itemRepo.save(item);
+		// 先更新商品摘要再更新索引，索引更新時會使篩選結果快取失效
+		itemSummaryService.refresh(saved.getItemId()); // 同步商品摘要
+		catalogSearchService.index(saved.getItemId()); // 同步搜尋索引
+		return saved;
 	}
 
 	public void addItem(Item item, List<Integer> transportationMethods, MultipartFile[] files) throws IOException {
+		addItem(item, transportationMethods, files, null);
+	}
+
+	/**
+	 * 新增商品，圖片來自表單檔案與已完成的分段上傳（uploadIds，見 UploadSessions）
+	 */
+	public void addItem(Item item, List<Integer> transportationMethods, MultipartFile[] files,
+			List<String> uploadIds) throws IOException {
 		// 處理運送方式
 		if (transportationMethods != null && !transportationMethods.isEmpty()) {
 			List<ItemTransportation> transportationList = transportationRepo.findAllById(transportationMethods);
@@ -73,15 +115,15 @@ public class ItemService {
 		}
 
 		// 處理圖片
-		if (files != null && files.length > 0) {
+		List<String> photoHashes = uploadPhotos(files, uploadIds);
+		if (!photoHashes.isEmpty()) {
 			List<ItemPhoto> photoList = new ArrayList<>();
-			for (MultipartFile file : files) {
-				if (!file.isEmpty()) {
-					ItemPhoto photo = new ItemPhoto();
-					photo.setPhotoFile(file.getBytes()); // 儲存圖片檔案
-					photo.setItem(item); // 關聯圖片到商品
-					photoList.add(photo);
-				}
+			for (String hash : photoHashes) {
+				ItemPhoto photo = new ItemPhoto();
+				photo.setPhotoHash(hash); // 圖片存在 ImageStore，只記錄 hash
+				photo.setSortOrder(photoList.size()); // 依上傳順序，第一張為主圖
+				photo.setItem(item); // 關聯圖片到商品
+				photoList.add(photo);
 			}
 			item.setItemPhoto(photoList); // 設定商品的圖片
 		}
@@ -98,9 +140,23 @@ public class ItemService {
 		// 保存商品資料
 		itemRepo.save(item); // 新增商品
 
+		// 同步商品摘要與搜尋索引
+		itemSummaryService.refresh(item.getItemId());
+		catalogSearchService.index(item.getItemId());
 	}
 
 	public void updateItem(Item item, List<Integer> transportationMethods, MultipartFile[] files) throws IOException {
+		updateItem(item, transportationMethods, files, null, null);
+	}
+
+	/**
+	 * 編輯商品，圖片只新增、刪除有變動的部分
+	 *
+	 * keepPhotoIds 為要保留的既有圖片（依顯示順序，第一張為主圖），新圖片（表單檔案或已完成的分段上傳）排在後面；
+	 * keepPhotoIds 為 null 時維持舊版表單的行為：有新圖片就取代全部舊圖片。
+	 */
+	public void updateItem(Item item, List<Integer> transportationMethods, MultipartFile[] files,
+			List<String> uploadIds, List<Integer> keepPhotoIds) throws IOException {
 	    // 處理運送方式
 	    if (transportationMethods != null && !transportationMethods.isEmpty()) {
 	        List<ItemTransportation> transportationList = transportationRepo.findAllById(transportationMethods);
@@ -114,34 +170,21 @@ public class ItemService {
 	        }
 	    }
 
-	    // 處理圖片
-	    if (files != null && files.length > 0) {
-	        boolean hasNewFiles = false;
-	        for (MultipartFile file : files) {
-	            if (!file.isEmpty()) {
-	                hasNewFiles = true;
-	                break;
-	            }
-	        }
-	        if (hasNewFiles) {
-	            // 有新圖片，刪除舊圖片並新增
-	            itemPhotoRepo.deleteByItem_ItemId(item.getItemId());
-	            for (MultipartFile file : files) {
-	                if (!file.isEmpty()) {
-	                    ItemPhoto photo = new ItemPhoto();
-	                    photo.setPhotoFile(file.getBytes());
-	                    photo.setItem(item);
-	                    itemPhotoRepo.save(photo); // 直接保存圖片
-	                }
-	            }
-	        }
-	    } 
+	    // 處理圖片（未變動的圖片保留原本的 ID，網址與快取仍然有效）
+	    List<String> photoHashes = uploadPhotos(files, uploadIds);
+	    if (keepPhotoIds != null || !photoHashes.isEmpty()) {
+	        updatePhotos(item, keepPhotoIds, photoHashes);
+	    }
 
 	    // 更新價格
 	    updateItemPrice(item);
 
 	    // 最後保存商品
 	    itemRepo.save(item);
+
+	    // 同步商品摘要與搜尋索引
+	    itemSummaryService.refresh(item.getItemId());
+	    catalogSearchService.index(item.getItemId());
 	}
 
 
@@ -161,7 +204,118 @@ public class ItemService {
 
 	public void deleteItemById(Integer id) {
 
+		evictPhotos(id);
 		itemRepo.deleteById(id);
+		itemSummaryService.remove(id); // 同步商品摘要
+		catalogSearchService.remove(id); // 同步搜尋索引
+
+	}
+
+	// 表單檔案從 multipart 暫存檔串流存進 ImageStore，分段上傳則取已完成的 hash；都會在背景產生縮圖
+	// 多張圖片同時處理，全部完成後才回傳（順序與上傳順序相同），呼叫端再寫入商品與圖片資料
+	private List<String> uploadPhotos(MultipartFile[] files, List<String> uploadIds) throws IOException {
+		List<Callable<String>> uploads = new ArrayList<>();
+		if (files != null) {
+			for (MultipartFile file : files) {
+				if (!file.isEmpty()) {
+					uploads.add(() -> {
+						try (InputStream in = file.getInputStream()) {
+							return imageUploadPipeline.upload(in);
+						}
+					});
+				}
+			}
+		}
+		if (uploadIds != null) {
+			for (String uploadId : uploadIds) {
+				uploads.add(() -> {
+					String hash = uploadSessions.complete(uploadId);
+					imageUploadPipeline.submit(hash);
+					return hash;
+				});
+			}
+		}
+		List<String> hashes = imageUploadPipeline.uploadAll(uploads);
+		// 全部成功後才釋放分段上傳，失敗時可以重試
+		if (uploadIds != null) {
+			for (String uploadId : uploadIds) {
+				uploadSessions.discard(uploadId);
+			}
+		}
+		return hashes;
+	}
+
+	// 比對既有圖片與新的圖片清單：只刪除沒有保留的、只新增內容沒出現過的，順序有變動的才更新 sortOrder
+	private void updatePhotos(Item item, List<Integer> keepPhotoIds, List<String> newHashes) {
+		Map<Integer, ItemPhoto> remaining = new LinkedHashMap<>();
+		for (ItemPhoto photo : itemPhotoRepo.findByItem_ItemIdOrderBySortOrderAscIdAsc(item.getItemId())) {
+			remaining.put(photo.getId(), photo);
+		}
+		List<ItemPhoto> photos = new ArrayList<>();
+		if (keepPhotoIds != null) {
+			for (Integer photoId : keepPhotoIds) {
+				ItemPhoto photo = photoId != null ? remaining.remove(photoId) : null; // 其他商品的或重複的 ID 略過
+				if (photo != null) {
+					photos.add(photo);
+				}
+			}
+		}
+		// 新圖片與要移除的圖片內容相同時沿用原本的資料列（例如重新上傳同一批圖片）
+		Map<String, ItemPhoto> removable = new HashMap<>();
+		if (!newHashes.isEmpty()) {
+			for (ItemPhoto photo : remaining.values()) {
+				removable.putIfAbsent(contentHash(photo), photo);
+			}
+		}
+		List<ItemPhoto> added = new ArrayList<>();
+		for (String hash : newHashes) {
+			ItemPhoto photo = removable.remove(hash);
+			if (photo != null) {
+				remaining.remove(photo.getId());
+				if (photo.getPhotoHash() == null) {
+					itemPhotoRepo.moveToStore(photo.getId(), hash); // 內容已在 ImageStore，不必再保留 BLOB
+				}
+			} else {
+				photo = new ItemPhoto();
+				photo.setPhotoHash(hash);
+				photo.setItem(item);
+				added.add(photo);
+			}
+			photos.add(photo);
+		}
+
+		if (!remaining.isEmpty()) {
+			for (Integer photoId : remaining.keySet()) {
+				imageResponses.evict(PhotoUrls.itemKey(photoId));
+				itemPhotoHashes.evict(photoId);
+			}
+			itemPhotoRepo.deleteAllByIdInBatch(remaining.keySet());
+		}
+		for (int i = 0; i < photos.size(); i++) {
+			ItemPhoto photo = photos.get(i);
+			if (photo.getId() == null) {
+				photo.setSortOrder(i);
+			} else if (photo.getSortOrder() != i) {
+				itemPhotoRepo.updateSortOrder(photo.getId(), i);
+			}
+		}
+		itemPhotoRepo.saveAll(added);
+	}
 
+	// 已存進 ImageStore 的圖片直接取 hash，舊資料才讀取 BLOB 計算
+	private static String contentHash(ItemPhoto photo) {
+		if (photo.getPhotoHash() != null) {
+			return photo.getPhotoHash();
+		}
+		byte[] bytes = photo.getPhotoFile();
+		return bytes != null ? ImageStore.hash(bytes) : "";
+	}
+
+	// 圖片 ID 不會重複使用，移除只是讓快取空間盡早給其他圖片
+	private void evictPhotos(int itemId) {
+		for (Integer photoId : itemPhotoRepo.findItemPhotoIdByItemId(itemId)) {
+			imageResponses.evict(PhotoUrls.itemKey(photoId));
+			itemPhotoHashes.evict(photoId);
+		}
 	}
 }
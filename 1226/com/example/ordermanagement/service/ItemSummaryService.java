@@ -0,0 +1,142 @@
+package com.example.ordermanagement.service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ordermanagement.model.Item;
+import com.example.ordermanagement.model.ItemOptionRepositry;
+import com.example.ordermanagement.model.ItemPhotoRepositry;
+import com.example.ordermanagement.model.ItemRepository;
+import com.example.ordermanagement.model.ItemSummary;
+import com.example.ordermanagement.model.ItemSummaryRepository;
+
+/**
+ * 維護商品摘要（item_summary），供列表頁一次查詢取得卡片所需資料
+ *
+ * 選項價格、庫存與第一張圖片都以彙總查詢取得，不載入選項實體與圖片 BLOB。
+ */
+@Service
+public class ItemSummaryService {
+
+    @Autowired
+    private ItemSummaryRepository itemSummaryRepo;
+
+    @Autowired
+    private ItemRepository itemRepo;
+
+    @Autowired
+    private ItemOptionRepositry itemOptionRepo;
+
+    @Autowired
+    private ItemPhotoRepositry itemPhotoRepo;
+
+    // 應用程式啟動時補齊摘要，涵蓋在此功能上線前建立的商品
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Integer, Object[]> options = new HashMap<>();
+        for (Object[] row : itemOptionRepo.summarizeAll()) {
+            options.put((Integer) row[0], row);
+        }
+        Map<Integer, Integer> photos = new HashMap<>();
+        for (Object[] row : itemPhotoRepo.findPrimaryPhotoIds()) {
+            photos.put((Integer) row[0], (Integer) row[1]);
+        }
+
+        List<ItemSummary> summaries = itemRepo.findAllForSearchIndex().stream()
+                .map(item -> toSummary(item, options.get(item.getItemId()), photos.get(item.getItemId())))
+                .collect(Collectors.toList());
+        itemSummaryRepo.deleteAllInBatch();
+        itemSummaryRepo.saveAll(summaries);
+        System.out.println("商品摘要建立完成：" + summaries.size() + " 筆，耗時 "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 重新計算單一商品的摘要（商品不存在時刪除摘要）
+     */
+    @Transactional
+    public void refresh(int itemId) {
+        itemRepo.findByIdForSearchIndex(itemId).ifPresentOrElse(item -> {
+            List<Object[]> rows = itemOptionRepo.summarizeByItemId(itemId);
+            itemSummaryRepo.save(toSummary(item, rows.isEmpty() ? null : rows.get(0),
+                    itemPhotoRepo.findPrimaryPhotoIdByItemId(itemId)));
+        }, () -> remove(itemId));
+    }
+
+    /**
+     * 選項庫存變動後只更新庫存旗標
+     */
+    @Transactional
+    public void refreshStock(int itemId) {
+        itemSummaryRepo.findById(itemId).ifPresent(summary -> {
+            boolean inStock = itemOptionRepo.sumQuantityByItemId(itemId) > 0;
+            if (summary.isInStock() != inStock) {
+                summary.setInStock(inStock);
+                itemSummaryRepo.save(summary);
+            }
+        });
+    }
+
+    @Transactional
+    public void renameBrand(int brandId, String brandName) {
+        itemSummaryRepo.updateBrandName(brandId, brandName);
+    }
+
+    @Transactional
+    public void renameCategory(int categoryId, String categoryName) {
+        itemSummaryRepo.updateCategoryName(categoryId, categoryName);
+    }
+
+    @Transactional
+    public void remove(int itemId) {
+        if (itemSummaryRepo.existsById(itemId)) {
+            itemSummaryRepo.deleteById(itemId);
+        }
+    }
+
+    /**
+     * 依 itemId 順序載入摘要（搜尋索引回傳的順序）
+     */
+    public List<ItemSummary> findAllInOrder(List<Integer> itemIds) {
+        Map<Integer, ItemSummary> byId = itemSummaryRepo.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, summary -> summary));
+        return itemIds.stream()
+                .map(byId::get)
+                .filter(summary -> summary != null)
+                .collect(Collectors.toList());
+    }
+
+    // options 為 [itemId, 最低價, 最高價, 總庫存]，沒有選項時為 null
+    private ItemSummary toSummary(Item item, Object[] options, Integer primaryPhotoId) {
+        ItemSummary summary = new ItemSummary(item.getItemId());
+        summary.setItemName(item.getItemName());
+        summary.setItemPrice(item.getItemPrice());
+        summary.setItemDate(item.getItemDate());
+        if (item.getBrand() != null) {
+            summary.setBrandId(item.getBrand().getBrandId());
+            summary.setBrandName(item.getBrand().getBrandName());
+        }
+        if (item.getCategory() != null) {
+            summary.setCategoryId(item.getCategory().getCategoryId());
+            summary.setCategoryName(item.getCategory().getCategoryName());
+        }
+        if (options != null) {
+            summary.setMinOptionPrice((BigDecimal) options[1]);
+            summary.setMaxOptionPrice((BigDecimal) options[2]);
+            summary.setInStock(options[3] != null && ((Number) options[3]).longValue() > 0);
+        }
+        summary.setPrimaryPhotoId(primaryPhotoId);
+        return summary;
+    }
+}
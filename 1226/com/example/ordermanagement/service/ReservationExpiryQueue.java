@@ -0,0 +1,72 @@
+package com.example.ordermanagement.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 庫存保留的到期佇列（依到期時間排序，並以保留 ID 索引目前的到期時間）
+ *
+ * 延長或取消保留時不在佇列中搜尋移除，只更新索引；舊的項目輪到時與索引不符就略過。
+ * 只記錄這個節點建立或延長的保留，其餘由 ReservationSweeper 定期掃描資料庫補上。
+ */
+@Component
+public class ReservationExpiryQueue {
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<Long, LocalDateTime> deadlines = new HashMap<>();
+
+    /**
+     * 記錄（或更新）保留的到期時間
+     */
+    public synchronized void schedule(long reservationId, LocalDateTime expiresAt) {
+        deadlines.put(reservationId, expiresAt);
+        queue.add(new Entry(reservationId, expiresAt));
+    }
+
+    /**
+     * 保留已結帳或取消，不必再釋放
+     */
+    public synchronized void cancel(long reservationId) {
+        deadlines.remove(reservationId);
+    }
+
+    /**
+     * 取出最多 max 筆到期時間不晚於 now 的保留 ID
+     */
+    public synchronized List<Long> pollExpired(LocalDateTime now, int max) {
+        List<Long> expired = new ArrayList<>();
+        while (expired.size() < max && !queue.isEmpty() && !queue.peek().expiresAt.isAfter(now)) {
+            Entry entry = queue.poll();
+            if (entry.expiresAt.equals(deadlines.get(entry.reservationId))) {
+                deadlines.remove(entry.reservationId);
+                expired.add(entry.reservationId);
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final long reservationId;
+        final LocalDateTime expiresAt;
+
+        Entry(long reservationId, LocalDateTime expiresAt) {
+            this.reservationId = reservationId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return expiresAt.compareTo(other.expiresAt);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.ordermanagement.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.ordermanagement.model.StockReservationRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 背景釋放逾時的庫存保留
+ *
+ * 每 sweep-interval 從 ReservationExpiryQueue 分批取出到期的保留交給 InventoryService.expire，
+ * 不必每次掃描整張表；每 scan-interval 再查一次資料庫，補上重新啟動前或其他節點建立的保留。
+ */
+@Component
+public class ReservationSweeper {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationExpiryQueue expiryQueue;
+
+    @Autowired
+    private StockReservationRepository reservationRepo;
+
+    @Value("${stock.reservation.sweep-interval-seconds:5}")
+    private long sweepIntervalSeconds;
+
+    @Value("${stock.reservation.scan-interval-seconds:60}")
+    private long scanIntervalSeconds;
+
+    @Value("${stock.reservation.batch-size:100}")
+    private int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-reservation-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long lastScan;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void sweep() {
+        try {
+            int released = 0;
+            List<Long> expired;
+            while (!(expired = expiryQueue.pollExpired(LocalDateTime.now(), batchSize)).isEmpty()) {
+                released += inventoryService.expire(expired);
+            }
+            if (System.currentTimeMillis() - lastScan >= TimeUnit.SECONDS.toMillis(scanIntervalSeconds)) {
+                lastScan = System.currentTimeMillis();
+                while (!(expired = reservationRepo.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, batchSize))).isEmpty()) {
+                    released += inventoryService.expire(expired);
+                }
+            }
+            if (released > 0) {
+                System.out.println("已釋放逾時的庫存保留：" + released + " 筆");
+            }
+        } catch (RuntimeException e) {
+            // 例外會讓 scheduleWithFixedDelay 停止後續排程，記錄後等下一輪重試
+            System.out.println("釋放庫存保留失敗：" + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
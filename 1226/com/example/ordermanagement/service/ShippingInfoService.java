@@ -1,5 +1,10 @@
 package com.example.ordermanagement.service;
 
+import com.example.ordermanagement.image.ImageResponses;
+import com.example.ordermanagement.image.ImageStore;
+import com.example.ordermanagement.image.ImageUploadPipeline;
+import com.example.ordermanagement.image.PhotoUrls;
+import com.example.ordermanagement.image.StoredImage;
 import com.example.ordermanagement.model.Order;
 import com.example.ordermanagement.model.OrderRepository;
 import com.example.ordermanagement.model.ShippingInfo;
@@ -27,6 +32,18 @@ public class ShippingInfoService {
     @Autowired
     private ShippingMethodRepository shippingMethodRepository;
 
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageUploadPipeline imageUploadPipeline;
+
+    @Autowired
+    private ImageResponses imageResponses;
+
+    @Autowired
+    private PhotoUrls photoUrls;
+
     /**
      * 更新物流信息
      */
@@ -51,10 +68,14 @@ public class ShippingInfoService {
 
         // 若有上傳圖片
         if (imageFile != null && !imageFile.isEmpty()) {
-            existingInfo.setShippingInfoImage(uploadImage(imageFile));
+            existingInfo.setShippingInfoImageHash(uploadImage(imageFile));
+            existingInfo.setShippingInfoImage(null);
         }
 
         shippingInfoRepository.save(existingInfo);
+        if (imageFile != null && !imageFile.isEmpty()) {
+            imageResponses.evict(PhotoUrls.shippingKey(shippingInfoId));
+        }
         return true;
     }
 
@@ -73,18 +94,44 @@ public class ShippingInfoService {
         existingInfo.setShippingInfoTrackingNumber(updatedInfo.getShippingInfoTrackingNumber());
     }
 
-    private byte[] uploadImage(MultipartFile imageFile) {
+    // 圖片存進 ImageStore，回傳內容 hash
+    private String uploadImage(MultipartFile imageFile) {
         if (imageFile.getContentType() == null 
             || !imageFile.getContentType().startsWith("image/")) {
             throw new IllegalArgumentException("只支持圖片檔案格式");
         }
         try {
-            return imageFile.getBytes();
+            // 與其他圖片相同產生衍生圖，圖片端點回傳的最大尺寸才有上限
+            return imageUploadPipeline.upload(imageFile.getInputStream());
         } catch (IOException e) {
             throw new RuntimeException("圖片上傳失敗: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 取得物流單圖片（已搬到 ImageStore 或仍在 BLOB 的舊資料），沒有圖片時為 empty
+     */
+    public Optional<byte[]> getShippingInfoImage(Long shippingInfoId) {
+        return shippingInfoRepository.findById(shippingInfoId).map(this::readImage);
+    }
+
+    /**
+     * 物流單圖片（hash 優先，舊資料才讀取 BLOB），找不到物流信息時為 null
+     */
+    public StoredImage getStoredImage(Long shippingInfoId) {
+        return shippingInfoRepository.findById(shippingInfoId)
+            .map(info -> StoredImage.of(info.getShippingInfoImageHash(), info::getShippingInfoImage))
+            .orElse(null);
+    }
+
+    private byte[] readImage(ShippingInfo info) {
+        try {
+            return imageStore.read(info.getShippingInfoImageHash(), info::getShippingInfoImage);
+        } catch (IOException e) {
+            throw new RuntimeException("讀取物流單圖片失敗: " + e.getMessage(), e);
+        }
+    }
+
     private ShippingMethod findShippingMethodById(Long methodId) {
         return shippingMethodRepository.findById(methodId)
             .orElseThrow(() -> new RuntimeException("指定的物流方式不存在"));
@@ -147,6 +194,10 @@ public class ShippingInfoService {
 
         List<ShippingInfo> shippingInfos = shippingInfoRepository.findAll(spec);
         List<Map<String, Object>> result = new ArrayList<>();
+        // 列表只回傳圖片網址，不讀取圖片內容
+        Set<Long> legacyImageIds = shippingInfos.isEmpty()
+            ? Collections.emptySet()
+            : shippingInfoRepository.findIdsWithLegacyImage();
 
         for (ShippingInfo info : shippingInfos) {
             // 組成回傳 map
@@ -159,10 +210,8 @@ public class ShippingInfoService {
             shippingInfoMap.put("shippingInfoAddress", info.getShippingInfoAddress());
             shippingInfoMap.put("shippingInfoStatus", info.getShippingInfoStatus());
             shippingInfoMap.put("shippingInfoTrackingNumber", info.getShippingInfoTrackingNumber());
-            if (info.getShippingInfoImage() != null) {
-                String base64Image = Base64.getEncoder().encodeToString(info.getShippingInfoImage());
-                shippingInfoMap.put("shippingInfoImage", base64Image);
-            }
+            shippingInfoMap.put("shippingInfoImageUrl", photoUrls.shipping(info.getShippingInfoId(),
+                info.getShippingInfoImageHash(), legacyImageIds.contains(info.getShippingInfoId())));
 
             // orderMap
             Map<String, Object> orderMap = new HashMap<>();
@@ -214,8 +263,9 @@ public class ShippingInfoService {
         shippingInfoMap.put("shippingInfoStatus", info.getShippingInfoStatus());
         shippingInfoMap.put("shippingInfoTrackingNumber", info.getShippingInfoTrackingNumber());
 
-        if (info.getShippingInfoImage() != null) {
-            String base64Image = Base64.getEncoder().encodeToString(info.getShippingInfoImage());
+        byte[] image = readImage(info);
+        if (image != null) {
+            String base64Image = Base64.getEncoder().encodeToString(image);
             shippingInfoMap.put("shippingInfoImage", base64Image);
         }
 